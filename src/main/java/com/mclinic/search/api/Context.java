@@ -68,8 +68,11 @@ public class Context {
      * Register a new resource object for future use.
      *
      * @param resource the resource to be registered.
+     * @throws IllegalArgumentException when a searchable field is declared with another type in a registered resource.
      * @should register programmatically created resource object.
      * @should not register resource without resource name.
+     * @should reject resource declaring field with conflicting type.
+     * @should resolve field types of the registered resource in queries.
      */
     public static void registerResource(final Resource resource) {
         getServiceContext().registerResource(resource);
@@ -14,12 +14,19 @@
 
 package com.mclinic.search.api;
 
+import com.mclinic.search.api.query.QueryBuilder;
 import com.mclinic.search.api.resource.Resource;
+import com.mclinic.search.api.result.Page;
+import com.mclinic.search.api.result.ResultIterator;
+import com.mclinic.search.api.result.ResultList;
 import org.apache.lucene.queryParser.ParseException;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public interface RestAssuredService {
 
@@ -34,27 +41,90 @@ public interface RestAssuredService {
      * _resource : the resource configuration used to convert the json to lucene
      * _date_indexed : date and time when the json was indexed
      * </pre>
+     * The ETag and Last-Modified validators of the last response are kept for each resolved URI and sent back as
+     * conditional request headers. When the server answers with 304 (Not Modified), the download and the indexing are
+     * skipped.
+     * <p/>
+     * When the resolver is a {@link com.mclinic.search.api.resolver.PagingResolver}, all pages of the resource are
+     * loaded. The next page is downloaded while the current page is being indexed.
+     * <p/>
+     * The payload is requested using gzip or deflate transfer compression and decoded before it's indexed.
      *
      * @param searchString the string to filter object that from the REST resource.
      * @param resource     the resource object which will describe how to index the json resource to lucene.
      * @should load objects based on the resource description
+     * @should skip download and indexing when the resource is not modified
+     * @should load all pages of a paged resource
+     * @should stop at link to a page which was already downloaded
+     * @should request and decode compressed payload
+     * @should reuse the connection between loads
      */
     void loadObjects(final String searchString, final Resource resource) throws ParseException, IOException;
 
+    /**
+     * Load objects from many REST resources into local lucene repository. Each resource will be loaded once for every
+     * search string mapped to the resource.
+     * <p/>
+     * The load is performed as a pipeline: the payloads are downloaded by <code>configuration.rest.fetch.threads</code>
+     * threads with at most <code>configuration.rest.host.connections</code> concurrent downloads per host, while the
+     * downloaded payloads are parsed and indexed by <code>configuration.lucene.load.threads</code> threads. The index
+     * is committed once after all payloads are indexed.
+     * <p/>
+     * Pages of a resource using {@link com.mclinic.search.api.resolver.PagingResolver} are downloaded as soon as the
+     * link to the page is known, and indexed like any other payload.
+     *
+     * @param searchStrings the search strings to filter object from the REST resource, mapped by the resource.
+     * @should load objects from all resources and search strings
+     * @should load all pages of paged resources
+     * @should not follow link to a page which was already downloaded
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource)
+     */
+    void loadObjects(final Map<Resource, List<String>> searchStrings) throws ParseException, IOException;
+
     /**
      * Load object described using the <code>resource</code> into local lucene repository. This method will load locally
      * saved json payload and then apply the <code>searchString</code> to limit the data which will be loaded into the
      * local lucene repository.
+     * <p/>
+     * When <code>configuration.lucene.load.threads</code> is configured, the files of a directory are loaded by that
+     * many worker threads and the index is committed once after all files are loaded.
+     * <p/>
+     * Files with <code>.gz</code> extension (e.g. <code>patients.json.gz</code>) are decompressed using gzip.
      *
      * @param searchString the search string to filter object returned from the file.
      * @param resource     the resource object which will describe how to index the json resource to lucene.
      * @param file         the file in the filesystem where the json resource is saved.
      * @should load object from filesystem based on the resource description
+     * @should load objects from directory using multiple threads
+     * @should load gzip compressed files
      * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource)
      */
     void loadObjects(final String searchString, final Resource resource, final File file)
             throws ParseException, IOException;
 
+    /**
+     * Load object described using the <code>resource</code> into local lucene repository, only indexing the files which
+     * changed since the last load recorded in the <code>manifest</code>. This method will load locally saved json
+     * payload and then apply the <code>searchString</code> to limit the data which will be loaded into the local lucene
+     * repository.
+     * <p/>
+     * The manifest keeps the size, last modified time and SHA-1 digest of every loaded file. A file with the same size
+     * and last modified time is skipped without being read, otherwise the digest is used to decide whether the file
+     * need to be indexed again. Objects loaded from files which are no longer under <code>file</code> are removed from
+     * the local repository.
+     *
+     * @param searchString the search string to filter object returned from the file.
+     * @param resource     the resource object which will describe how to index the json resource to lucene.
+     * @param file         the file in the filesystem where the json resource is saved.
+     * @param manifest     the file in the filesystem where the state of the loaded files is saved.
+     * @should load object from filesystem based on the resource description
+     * @should skip files which are not changed since the last load
+     * @should remove objects loaded from deleted files
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource, java.io.File)
+     */
+    void loadObjects(final String searchString, final Resource resource, final File file, final File manifest)
+            throws ParseException, IOException;
+
     /**
      * Search for an object with matching <code>key</code> and <code>clazz</code> type from the local repository. This
      * method will only return single object or null if no object match the key.
@@ -92,20 +162,26 @@ public interface RestAssuredService {
 
     /**
      * Search for objects with matching <code>searchString</code> and <code>clazz</code> type from the local repository.
-     * This method will return list of all matching object or empty list if no object match the search string.
+     * This method will return list of all matching object, ordered by their relevance to the search string, or empty
+     * list if no object match the search string. Every match is loaded in memory, there's no longer a cap on the number
+     * of returned objects. Use the paged or iterating search when the number of matching objects can be large.
      *
      * @param searchString the search string to limit the number of returned object
      * @param clazz        the expected return type of the object
      * @return list of all object with matching <code>searchString</code> and <code>clazz</code> or empty list
      * @should return all object matching the search search string and class
      * @should return empty list when no object match the search string and class
+     * @should search date without time as midnight utc
+     * @should order objects by their relevance like the ranged search
      */
     <T> List<T> getObjects(final String searchString, final Class<T> clazz) throws ParseException, IOException;
 
     /**
      * Search for objects with matching <code>searchString</code> and <code>resource</code> type from the local
-     * repository. This method will return list of all matching object or empty list if no object match the search
-     * string.
+     * repository. This method will return list of all matching object, ordered by their relevance to the search string,
+     * or empty list if no object match the search string. Every match is loaded in memory, there's no longer a cap on
+     * the number of returned objects. Use the paged or iterating search when the number of matching objects can be
+     * large.
      *
      * @param searchString the search string to limit the number of returned object
      * @param resource     the resource descriptor used to register the object
@@ -115,6 +191,254 @@ public interface RestAssuredService {
      */
     List<Object> getObjects(final String searchString, final Resource resource) throws ParseException, IOException;
 
+    /**
+     * Search for a range of objects with matching <code>searchString</code> and <code>clazz</code> type from the local
+     * repository. The objects are ordered by their relevance to the search string.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param clazz        the expected return type of the object
+     * @param offset       the number of matching objects to skip
+     * @param limit        the maximum number of returned objects
+     * @return list of at most <code>limit</code> matching objects starting at <code>offset</code> or empty list
+     * @throws IllegalArgumentException when the offset is negative
+     * @should return objects starting at the offset up to the limit
+     * @should reject negative offset
+     */
+    <T> List<T> getObjects(final String searchString, final Class<T> clazz, final int offset, final int limit)
+            throws ParseException, IOException;
+
+    /**
+     * Search for a range of objects with matching <code>searchString</code> and <code>resource</code> type from the
+     * local repository. The objects are ordered by their relevance to the search string.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param resource     the resource descriptor used to register the object
+     * @param offset       the number of matching objects to skip
+     * @param limit        the maximum number of returned objects
+     * @return list of at most <code>limit</code> matching objects starting at <code>offset</code> or empty list
+     */
+    List<Object> getObjects(final String searchString, final Resource resource, final int offset, final int limit)
+            throws ParseException, IOException;
+
+    /**
+     * Get the builder to create lucene queries on the searchable fields without writing and parsing search strings.
+     * Queries created by the builder can be reused for many searches.
+     *
+     * @return the query builder
+     */
+    QueryBuilder getQueryBuilder();
+
+    /**
+     * Search for an object matching the <code>query</code> and <code>clazz</code> type from the local repository. This
+     * method will only return single object or null if no object match the query.
+     *
+     * @param query the query created using the query builder
+     * @param clazz the expected return type of the object
+     * @return object matching the query and clazz or null
+     * @should return object matching the query and type
+     * @should throw IOException if the query and class unable to return unique object
+     */
+    <T> T getObject(final Query query, final Class<T> clazz) throws IOException;
+
+    /**
+     * Search for an object matching the <code>query</code> and <code>resource</code> from the local repository. This
+     * method will only return single object or null if no object match the query.
+     *
+     * @param query    the query created using the query builder
+     * @param resource the resource descriptor used to register the object
+     * @return object matching the query and resource or null
+     */
+    Object getObject(final Query query, final Resource resource) throws IOException;
+
+    /**
+     * Get an object by the value of the unique searchable field of its resource. The key is looked up directly in the
+     * index without parsing a query or scoring the hits, which makes this the fastest way to read a single object.
+     * <p/>
+     * The key is matched regardless of its case, and only objects of resources with a single unique searchable field
+     * can be found this way. Use <code>getObject</code> for resources with several unique fields.
+     *
+     * @param key   the value of the unique searchable field of the object
+     * @param clazz the expected return type of the object
+     * @return object with matching key and clazz or null
+     * @should return object with matching key and type
+     * @should return null when no object match the key and type
+     */
+    <T> T getObjectByKey(final String key, final Class<T> clazz) throws IOException;
+
+    /**
+     * Get an object of the resource by the value of the unique searchable field of the resource. The key is looked up
+     * directly in the index without parsing a query or scoring the hits, and it's matched regardless of its case.
+     *
+     * @param key      the value of the unique searchable field of the object
+     * @param resource the resource descriptor used to register the object
+     * @return object with matching key or null
+     */
+    Object getObjectByKey(final String key, final Resource resource) throws IOException;
+
+    /**
+     * Search for objects matching the <code>query</code> and <code>clazz</code> type from the local repository. The
+     * query is executed as is, without going through the query parser.
+     *
+     * @param query the query created using the query builder
+     * @param clazz the expected return type of the object
+     * @return list of all object matching the <code>query</code> and <code>clazz</code> or empty list
+     * @should return all object matching the query and class
+     */
+    <T> List<T> getObjects(final Query query, final Class<T> clazz) throws IOException;
+
+    /**
+     * Search for objects matching the <code>query</code> and <code>resource</code> from the local repository. The
+     * query is executed as is, without going through the query parser.
+     *
+     * @param query    the query created using the query builder
+     * @param resource the resource descriptor used to register the object
+     * @return list of all object matching the <code>query</code> and <code>resource</code> or empty list
+     */
+    List<Object> getObjects(final Query query, final Resource resource) throws IOException;
+
+    /**
+     * Search for a range of objects matching the <code>query</code> and <code>clazz</code> type from the local
+     * repository. The objects are ordered by their relevance to the query.
+     *
+     * @param query  the query created using the query builder
+     * @param clazz  the expected return type of the object
+     * @param offset the number of matching objects to skip
+     * @param limit  the maximum number of returned objects
+     * @return list of at most <code>limit</code> matching objects starting at <code>offset</code> or empty list
+     */
+    <T> List<T> getObjects(final Query query, final Class<T> clazz, final int offset, final int limit)
+            throws IOException;
+
+    /**
+     * Search for a range of objects matching the <code>query</code> and <code>resource</code> from the local
+     * repository. The objects are ordered by their relevance to the query.
+     *
+     * @param query    the query created using the query builder
+     * @param resource the resource descriptor used to register the object
+     * @param offset   the number of matching objects to skip
+     * @param limit    the maximum number of returned objects
+     * @return list of at most <code>limit</code> matching objects starting at <code>offset</code> or empty list
+     */
+    List<Object> getObjects(final Query query, final Resource resource, final int offset, final int limit)
+            throws IOException;
+
+    /**
+     * Search for a range of objects with matching <code>searchString</code> and <code>clazz</code> type from the local
+     * repository and return only the stored values of the selected searchable fields. The objects are not
+     * deserialized, which makes this cheaper than <code>getObjects</code> when only a few fields are displayed.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param clazz        the expected type of the object
+     * @param fields       the name of the searchable fields to return
+     * @param offset       the number of matching objects to skip
+     * @param limit        the maximum number of returned objects
+     * @return the values of the selected fields for each matching object, keyed by the name of the field
+     * @should return the values of the selected fields for each matching object
+     */
+    List<Map<String, String>> getFieldValues(final String searchString, final Class<?> clazz,
+                                             final List<String> fields, final int offset, final int limit)
+            throws ParseException, IOException;
+
+    /**
+     * Search for a range of objects with matching <code>searchString</code> and <code>resource</code> type from the
+     * local repository and return only the stored values of the selected searchable fields.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param resource     the resource descriptor used to register the object
+     * @param fields       the name of the searchable fields to return
+     * @param offset       the number of matching objects to skip
+     * @param limit        the maximum number of returned objects
+     * @return the values of the selected fields for each matching object, keyed by the name of the field
+     */
+    List<Map<String, String>> getFieldValues(final String searchString, final Resource resource,
+                                             final List<String> fields, final int offset, final int limit)
+            throws ParseException, IOException;
+
+    /**
+     * Search for a page of objects with matching <code>searchString</code> and <code>clazz</code> type from the local
+     * repository, starting after the <code>cursor</code>. Pass the cursor of the returned page to get the next page.
+     * <p/>
+     * Unlike the offset based search, the cost of getting a page doesn't grow with the number of the previous pages.
+     * The cursor is only valid as long as the local repository is not changed.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param clazz        the expected return type of the object
+     * @param cursor       the cursor of the previous page or null to get the first page
+     * @param limit        the maximum number of objects in the page
+     * @return the page of matching objects
+     * @should return all objects when following the cursor of each page
+     */
+    <T> Page<T> getPage(final String searchString, final Class<T> clazz, final ScoreDoc cursor, final int limit)
+            throws ParseException, IOException;
+
+    /**
+     * Search for a page of objects with matching <code>searchString</code> and <code>resource</code> type from the
+     * local repository, starting after the <code>cursor</code>. Pass the cursor of the returned page to get the next
+     * page.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param resource     the resource descriptor used to register the object
+     * @param cursor       the cursor of the previous page or null to get the first page
+     * @param limit        the maximum number of objects in the page
+     * @return the page of matching objects
+     */
+    Page<Object> getPage(final String searchString, final Resource resource, final ScoreDoc cursor, final int limit)
+            throws ParseException, IOException;
+
+    /**
+     * Iterate over all objects with matching <code>searchString</code> and <code>clazz</code> type from the local
+     * repository. Objects are read from the repository as the iterator advances, so the whole result is never held in
+     * memory. The iterator must be closed when the iteration is stopped before the last object.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param clazz        the expected return type of the object
+     * @return iterator over all matching objects
+     * @should iterate over all matching objects
+     */
+    <T> ResultIterator<T> iterateObjects(final String searchString, final Class<T> clazz)
+            throws ParseException, IOException;
+
+    /**
+     * Iterate over all objects with matching <code>searchString</code> and <code>resource</code> type from the local
+     * repository. Objects are read from the repository as the iterator advances, so the whole result is never held in
+     * memory. The iterator must be closed when the iteration is stopped before the last object.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param resource     the resource descriptor used to register the object
+     * @return iterator over all matching objects
+     */
+    ResultIterator<Object> iterateObjects(final String searchString, final Resource resource)
+            throws ParseException, IOException;
+
+    /**
+     * Search for objects with matching <code>searchString</code> and <code>clazz</code> type from the local repository
+     * and return them as a lazy list. The list only holds the hits, each object is read and deserialized when the
+     * element is accessed, which is cheaper than <code>getObjects</code> when only some of the objects are used.
+     * <p/>
+     * The returned list must be closed when it's no longer used.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param clazz        the expected return type of the object
+     * @return lazy list of all object with matching <code>searchString</code> and <code>clazz</code>
+     * @should return lazy list of all matching objects
+     */
+    <T> ResultList<T> getResultList(final String searchString, final Class<T> clazz)
+            throws ParseException, IOException;
+
+    /**
+     * Search for objects with matching <code>searchString</code> and <code>resource</code> type from the local
+     * repository and return them as a lazy list. The list only holds the hits, each object is read and deserialized
+     * when the element is accessed.
+     * <p/>
+     * The returned list must be closed when it's no longer used.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param resource     the resource descriptor used to register the object
+     * @return lazy list of all object with matching <code>searchString</code> and <code>resource</code>
+     */
+    ResultList<Object> getResultList(final String searchString, final Resource resource)
+            throws ParseException, IOException;
+
     /**
      * Remove an object based on the resource from the local repository. The method will determine if there's unique
      * <code>object</code> in the local repository and then remove it. This method will return null if there's no
@@ -141,6 +465,7 @@ public interface RestAssuredService {
      * @param resource the resource object which will describe how to index the json resource to lucene.
      * @return the object that was created
      * @should create a new object in the internal index system
+     * @should reject object without value for the unique field
      */
     Object createObject(final Object object, final Resource resource) throws ParseException, IOException;
 
@@ -154,7 +479,39 @@ public interface RestAssuredService {
      * @param object   the object to be updated
      * @param resource the resource object which will describe how to index the json resource to lucene.
      * @return the object that was updated
+     * @should replace object with the same unique value regardless of its case
+     * @should replace object written without the unique key
+     * @should replace object written without the unique key after the index is reopened
      */
     Object updateObject(final Object object, final Resource resource) throws ParseException, IOException;
 
+    /**
+     * Wait until the last create, update or invalidate performed by the calling thread is persisted in the local
+     * repository.
+     * <p/>
+     * When the group commit is configured (using <code>configuration.lucene.commit.interval</code> or
+     * <code>configuration.lucene.commit.size</code>), changes from many callers are committed together and this method
+     * will block until the next commit. Otherwise every change is persisted before the call returns and this method
+     * will return immediately.
+     *
+     * @throws IOException when the commit failed or the waiting thread was interrupted.
+     * @should wait until changes from the calling thread are committed
+     */
+    void awaitCommit() throws IOException;
+
+    /**
+     * Get the number of searches answered from the query result cache since the service was created. The cache is
+     * enabled by setting <code>configuration.lucene.query.cache.size</code>.
+     *
+     * @return the number of query cache hits
+     * @should count repeated searches as cache hits
+     */
+    long getQueryCacheHits();
+
+    /**
+     * Get the number of searches executed on the index because their result was not in the query result cache.
+     *
+     * @return the number of query cache misses
+     */
+    long getQueryCacheMisses();
 }
@@ -17,11 +17,14 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.mclinic.search.api.internal.factory.Factory;
 import com.mclinic.search.api.internal.file.ResourceFileFilter;
+import com.mclinic.search.api.query.QueryBuilder;
 import com.mclinic.search.api.registry.Registry;
 import com.mclinic.search.api.resolver.Resolver;
+import com.mclinic.search.api.resource.FieldType;
 import com.mclinic.search.api.resource.ObjectResource;
 import com.mclinic.search.api.resource.Resource;
 import com.mclinic.search.api.resource.ResourceConstants;
+import com.mclinic.search.api.resource.SearchableField;
 import com.mclinic.search.api.serialization.Algorithm;
 import com.mclinic.search.api.util.ResourceUtil;
 import com.mclinic.search.api.util.StringUtil;
@@ -32,6 +35,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -56,6 +60,9 @@ public class ServiceContext {
     @Inject
     private RestAssuredService restAssuredService;
 
+    @Inject
+    private QueryBuilder queryBuilder;
+
     public RestAssuredService getRestAssuredService() {
         return restAssuredService;
     }
@@ -64,12 +71,34 @@ public class ServiceContext {
      * Register a new resource object for future use.
      *
      * @param resource the resource to be registered.
+     * @throws IllegalArgumentException when a searchable field is declared with another type in a registered resource.
      * @should register programmatically created resource object.
      * @should not register resource without resource name.
+     * @should reject resource declaring field with conflicting type.
+     * @should resolve field types of the registered resource in queries.
      */
     public void registerResource(final Resource resource) {
-        if (resource != null && resource.getName() != null)
+        if (resource != null && resource.getName() != null) {
+            checkFieldTypes(resource);
             resourceRegistry.putEntry(resource.getName(), resource);
+            queryBuilder.clearFieldTypes();
+        }
+    }
+
+    private void checkFieldTypes(final Resource resource) {
+        for (Resource registeredResource : resourceRegistry.getEntries().values()) {
+            if (registeredResource.getName().equals(resource.getName()))
+                continue;
+            for (SearchableField registeredField : registeredResource.getSearchableFields()) {
+                for (SearchableField searchableField : resource.getSearchableFields()) {
+                    if (searchableField.getName().equals(registeredField.getName())
+                            && searchableField.getType() != registeredField.getType())
+                        throw new IllegalArgumentException("Field '" + searchableField.getName() + "' of resource '"
+                                + resource.getName() + "' is declared as " + registeredField.getType()
+                                + " in resource '" + registeredResource.getName() + "'.");
+                }
+            }
+        }
     }
 
     /**
@@ -120,13 +149,29 @@ public class ServiceContext {
         String resolverKey = properties.getEntryValue(ResourceConstants.RESOURCE_URI_RESOLVER_CLASS);
         Resolver resolver = resolverFactory.createImplementation(resolverKey);
 
-        Resource resource = new ObjectResource(resourceName, rootNode, objectClass, algorithm, resolver);
+        ObjectResource resource = new ObjectResource(resourceName, rootNode, objectClass, algorithm, resolver);
 
         Object uniqueField = properties.getEntryValue(ResourceConstants.RESOURCE_UNIQUE_FIELD);
         List<String> uniqueFields = new ArrayList<String>();
         if (uniqueField != null)
             uniqueFields = Arrays.asList(StringUtil.split(uniqueField.toString(), ","));
 
+        // typed fields are declared as comma separated name:type pairs, e.g. "age:int,birthdate:date"
+        Object typedField = properties.getEntryValue(ResourceConstants.RESOURCE_FIELD_TYPE);
+        Map<String, FieldType> fieldTypes = new HashMap<String, FieldType>();
+        if (typedField != null) {
+            for (String fieldType : StringUtil.split(typedField.toString(), ",")) {
+                String[] elements = StringUtil.split(fieldType, ":");
+                if (elements.length != 2)
+                    throw new IOException("Invalid field type declaration: '" + fieldType + "' in " + file + ".");
+                try {
+                    fieldTypes.put(elements[0].trim(), FieldType.fromName(elements[1]));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Unknown field type: '" + elements[1] + "' in " + file + ".");
+                }
+            }
+        }
+
         List<String> ignoredField = ResourceConstants.NON_SEARCHABLE_FIELDS;
         Map<String, String> entries = properties.getEntries();
         for (String fieldName : entries.keySet()) {
@@ -134,7 +179,10 @@ public class ServiceContext {
                 Boolean unique = Boolean.FALSE;
                 if (uniqueFields.contains(fieldName))
                     unique = Boolean.TRUE;
-                resource.addFieldDefinition(fieldName, entries.get(fieldName), unique);
+                FieldType type = fieldTypes.get(fieldName);
+                if (type == null)
+                    type = FieldType.STRING;
+                resource.addFieldDefinition(fieldName, entries.get(fieldName), unique, type);
             }
         }
 
@@ -170,7 +218,9 @@ public class ServiceContext {
      * @should return removed resource object
      */
     public Resource removeResource(final Resource resource) {
-        return resourceRegistry.removeEntry(resource.getName());
+        Resource removedResource = resourceRegistry.removeEntry(resource.getName());
+        queryBuilder.clearFieldTypes();
+        return removedResource;
     }
 
     /**
@@ -0,0 +1,35 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.http;
+
+import com.mclinic.search.api.resolver.Resolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+
+public interface ConnectionManager {
+
+    URLConnection openConnection(final String uri, final Resolver resolver) throws IOException;
+
+    InputStream getInputStream(final URLConnection connection) throws IOException;
+
+    InputStream decode(final InputStream stream, final String encoding) throws IOException;
+
+    void discard(final URLConnection connection);
+
+    void acquire(final String uri) throws IOException, InterruptedException;
+
+    void release(final String uri) throws IOException;
+}
@@ -0,0 +1,237 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.http;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import com.mclinic.search.api.resolver.Resolver;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Connection manager on top of the <code>HttpURLConnection</code> of the JDK. The JDK keeps the underlying socket of
+ * a connection alive and reuses it for the next request to the same host, as long as the response body is read and
+ * closed instead of disconnecting the connection. This manager makes sure every connection is opened with the
+ * configured timeouts and released in a way which keep the socket reusable, and limits the number of concurrent
+ * connections to a single host.
+ */
+public class DefaultConnectionManager implements ConnectionManager {
+
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int DEFAULT_CONNECT_TIMEOUT = 30000;
+
+    private static final int DEFAULT_READ_TIMEOUT = 60000;
+
+    private static final int DEFAULT_HOST_CONNECTIONS = 2;
+
+    private static final int MAX_DRAINED_BYTES = 64 * 1024;
+
+    private Integer connectTimeout;
+
+    private Integer readTimeout;
+
+    private Integer hostConnections;
+
+    private final Map<String, Semaphore> hostPermits = new HashMap<String, Semaphore>();
+
+    /**
+     * Set the timeout in milliseconds when opening a connection to the REST resource. The default value is 30 seconds.
+     *
+     * @param connectTimeout the connect timeout in milliseconds.
+     */
+    @Inject(optional = true)
+    private void setConnectTimeout(final @Named("configuration.rest.connect.timeout") Integer connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Set the timeout in milliseconds when waiting for data from the REST resource. The default value is 60 seconds.
+     *
+     * @param readTimeout the read timeout in milliseconds.
+     */
+    @Inject(optional = true)
+    private void setReadTimeout(final @Named("configuration.rest.read.timeout") Integer readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Set the maximum number of concurrent connections to a single host. The default value is 2 connections per host.
+     *
+     * @param hostConnections the maximum number of connections per host.
+     */
+    @Inject(optional = true)
+    private void setHostConnections(final @Named("configuration.rest.host.connections") Integer hostConnections) {
+        this.hostConnections = hostConnections;
+    }
+
+    /**
+     * Open a connection to the REST resource. The connection will request compressed payload and will be
+     * authenticated using the resolver.
+     *
+     * @param uri      the resolved uri of the REST resource.
+     * @param resolver the resolver used to authenticate the connection.
+     * @return the connection to the REST resource.
+     * @throws IOException when opening the connection failed.
+     */
+    @Override
+    public URLConnection openConnection(final String uri, final Resolver resolver) throws IOException {
+        URLConnection connection = new URL(uri).openConnection();
+        connection.setConnectTimeout(connectTimeout == null ? DEFAULT_CONNECT_TIMEOUT : connectTimeout);
+        connection.setReadTimeout(readTimeout == null ? DEFAULT_READ_TIMEOUT : readTimeout);
+        connection.setUseCaches(false);
+        connection.setRequestProperty("Accept-Encoding", ACCEPT_ENCODING);
+        return resolver.authenticate(connection);
+    }
+
+    /**
+     * Get the decoded stream of the response body. Closing the returned stream will read the rest of the response
+     * body and release the connection back to the JDK keep-alive cache. Otherwise, the JDK would only clean up the
+     * connection in the background and the next request would open a new connection. When more than 64 KB of the
+     * response body is left unread, the connection is disconnected instead, opening a new connection is cheaper than
+     * downloading the rest of a large response.
+     *
+     * @param connection the connection to the REST resource.
+     * @return the decoded stream of the response body.
+     * @throws IOException when reading the response failed.
+     */
+    @Override
+    public InputStream getInputStream(final URLConnection connection) throws IOException {
+        final InputStream stream = connection.getInputStream();
+        try {
+            return new FilterInputStream(decode(stream, connection.getContentEncoding())) {
+                @Override
+                public void close() throws IOException {
+                    boolean drained = false;
+                    try {
+                        drained = drain(stream);
+                    } finally {
+                        super.close();
+                        if (!drained && connection instanceof HttpURLConnection)
+                            ((HttpURLConnection) connection).disconnect();
+                    }
+                }
+            };
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the rest of the stream, up to a bounded number of bytes.
+     *
+     * @param stream the stream to be drained.
+     * @return true when the end of the stream is reached, false when there's more data left in the stream.
+     * @throws IOException when reading the stream failed.
+     */
+    private boolean drain(final InputStream stream) throws IOException {
+        byte[] buffer = new byte[4096];
+        int drained = 0;
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            drained += read;
+            if (drained > MAX_DRAINED_BYTES)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Wrap the stream with the decoder of the content encoding. The stream is returned as is when the content is not
+     * encoded.
+     *
+     * @param stream   the encoded stream.
+     * @param encoding the content encoding, e.g. gzip or deflate.
+     * @return the decoded stream.
+     * @throws IOException when the stream is not a valid encoded stream.
+     */
+    @Override
+    public InputStream decode(final InputStream stream, final String encoding) throws IOException {
+        if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding))
+            return new GZIPInputStream(stream);
+        if ("deflate".equalsIgnoreCase(encoding))
+            return new InflaterInputStream(stream);
+        return stream;
+    }
+
+    /**
+     * Release a connection without reading the response body, e.g. when the server answers with 304 (Not Modified).
+     * The connection is only disconnected when the response can't be closed cleanly.
+     *
+     * @param connection the connection to the REST resource.
+     */
+    @Override
+    public void discard(final URLConnection connection) {
+        try {
+            // the JDK already released the connection of a response without body.
+            if (connection instanceof HttpURLConnection) {
+                int responseCode = ((HttpURLConnection) connection).getResponseCode();
+                if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED
+                        || responseCode == HttpURLConnection.HTTP_NO_CONTENT)
+                    return;
+            }
+            connection.getInputStream().close();
+        } catch (IOException e) {
+            if (connection instanceof HttpURLConnection)
+                ((HttpURLConnection) connection).disconnect();
+        }
+    }
+
+    /**
+     * Wait until a connection to the host of the uri is available.
+     *
+     * @param uri the resolved uri of the REST resource.
+     * @throws IOException          when the uri is not a valid url.
+     * @throws InterruptedException when the thread was interrupted while waiting for a connection to the host.
+     */
+    @Override
+    public void acquire(final String uri) throws IOException, InterruptedException {
+        getHostPermit(uri).acquire();
+    }
+
+    /**
+     * Release the connection to the host of the uri acquired using <code>acquire</code>.
+     *
+     * @param uri the resolved uri of the REST resource.
+     * @throws IOException when the uri is not a valid url.
+     */
+    @Override
+    public void release(final String uri) throws IOException {
+        getHostPermit(uri).release();
+    }
+
+    private Semaphore getHostPermit(final String uri) throws IOException {
+        String host = new URL(uri).getAuthority();
+        synchronized (hostPermits) {
+            Semaphore permit = hostPermits.get(host);
+            if (permit == null) {
+                int permits = hostConnections == null ? DEFAULT_HOST_CONNECTIONS : Math.max(1, hostConnections);
+                permit = new Semaphore(permits);
+                hostPermits.put(host, permit);
+            }
+            return permit;
+        }
+    }
+}
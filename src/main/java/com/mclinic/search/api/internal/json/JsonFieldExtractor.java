@@ -0,0 +1,163 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.json;
+
+import com.mclinic.search.api.resource.SearchableField;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extract the values of all searchable fields of a resource from a parsed json object in a single traversal. The
+ * JsonPath expressions of the searchable fields are combined into a trie, so fields sharing the same parent node (e.g.
+ * "$.person.display" and "$.person.age") will only look up the parent node once.
+ * <p/>
+ * Only dot notation, bracket notation with a quoted name and non negative array index are handled by the trie. Fields
+ * with other expressions (filters, wildcards, deep scan, etc) will be evaluated using their compiled JsonPath.
+ */
+public class JsonFieldExtractor {
+
+    private static final Pattern PATH_SEGMENT = Pattern.compile("\\.([^.\\[\\]*()@?'\"]+)|\\['([^']+)'\\]|\\[(\\d+)\\]");
+
+    private final Node root;
+
+    private final List<SearchableField> searchableFields;
+
+    private final List<Integer> fallbackFields;
+
+    public JsonFieldExtractor(final List<SearchableField> searchableFields) {
+        this.root = new Node();
+        this.searchableFields = new ArrayList<SearchableField>(searchableFields);
+        this.fallbackFields = new ArrayList<Integer>();
+        for (int i = 0; i < this.searchableFields.size(); i++) {
+            if (!addPath(this.searchableFields.get(i).getExpression(), i))
+                fallbackFields.add(i);
+        }
+    }
+
+    /**
+     * Add the JsonPath expression of a field to the trie.
+     *
+     * @param expression the JsonPath expression
+     * @param index      the position of the field in the searchable fields
+     * @return true if the expression can be handled by the trie, false otherwise
+     */
+    private boolean addPath(final String expression, final int index) {
+        if (expression == null || !expression.startsWith("$"))
+            return false;
+
+        List<Object> segments = new ArrayList<Object>();
+        Matcher matcher = PATH_SEGMENT.matcher(expression);
+        int position = 1;
+        while (position < expression.length()) {
+            if (!matcher.find(position) || matcher.start() != position)
+                return false;
+            if (matcher.group(1) != null)
+                segments.add(matcher.group(1));
+            else if (matcher.group(2) != null)
+                segments.add(matcher.group(2));
+            else
+                segments.add(Integer.valueOf(matcher.group(3)));
+            position = matcher.end();
+        }
+
+        Node node = root;
+        for (Object segment : segments)
+            node = node.child(segment);
+        node.fields.add(index);
+        return true;
+    }
+
+    /**
+     * Get the searchable fields handled by this extractor. The values returned by <code>extract(Object)</code> are in
+     * the same order as these fields.
+     *
+     * @return the searchable fields
+     * @should return the searchable fields in the order of the values
+     */
+    public List<SearchableField> getSearchableFields() {
+        return searchableFields;
+    }
+
+    /**
+     * Extract the values of all searchable fields from the json object. Value of a field will be null when the path
+     * doesn't exist in the json object.
+     *
+     * @param jsonObject the parsed json object
+     * @return the values of the searchable fields, in the same order as the searchable fields
+     * @should read the values of nested fields
+     * @should read the values of array elements
+     * @should evaluate unsupported expressions using their compiled path
+     * @should return null for fields without value
+     */
+    public Object[] extract(final Object jsonObject) {
+        Object[] values = new Object[searchableFields.size()];
+        visit(root, jsonObject, values);
+        for (Integer index : fallbackFields)
+            values[index] = searchableFields.get(index).getPath().read(jsonObject);
+        return values;
+    }
+
+    private void visit(final Node node, final Object json, final Object[] values) {
+        for (Integer index : node.fields)
+            values[index] = json;
+
+        if (json instanceof Map) {
+            Map map = (Map) json;
+            for (Map.Entry<String, Node> entry : node.properties.entrySet()) {
+                Object child = map.get(entry.getKey());
+                if (child != null)
+                    visit(entry.getValue(), child, values);
+            }
+        } else if (json instanceof List) {
+            List list = (List) json;
+            for (Map.Entry<Integer, Node> entry : node.elements.entrySet()) {
+                int index = entry.getKey();
+                if (index < list.size() && list.get(index) != null)
+                    visit(entry.getValue(), list.get(index), values);
+            }
+        }
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> properties = new HashMap<String, Node>();
+
+        private final Map<Integer, Node> elements = new HashMap<Integer, Node>();
+
+        private final List<Integer> fields = new ArrayList<Integer>();
+
+        private Node child(final Object segment) {
+            Node node;
+            if (segment instanceof Integer) {
+                node = elements.get(segment);
+                if (node == null) {
+                    node = new Node();
+                    elements.put((Integer) segment, node);
+                }
+            } else {
+                node = properties.get(segment);
+                if (node == null) {
+                    node = new Node();
+                    properties.put((String) segment, node);
+                }
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.json;
+
+import com.mclinic.search.api.util.StringUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal pull reader to walk a json payload without reading the whole payload into memory. The reader will move to
+ * the node denoted by a simple JsonPath expression (e.g. "$" or "$.results") and then return the json representation
+ * of each element of that node one at a time.
+ * <p/>
+ * Only dot notation path without filter, wildcard or array index is supported. Use <code>isStreamable(String)</code>
+ * to check whether a JsonPath expression can be handled by this reader.
+ */
+public class JsonStreamReader {
+
+    private static final Pattern STREAMABLE_PATH = Pattern.compile("\\$(\\.[^.\\[\\]*()@?'\"]+)*");
+
+    private static final int NONE = -2;
+
+    private final Reader reader;
+
+    private int peeked = NONE;
+
+    private boolean array;
+
+    private boolean finished;
+
+    public JsonStreamReader(final Reader reader) {
+        this.reader = new BufferedReader(reader);
+    }
+
+    /**
+     * Check whether the JsonPath expression can be evaluated by this reader.
+     *
+     * @param path the JsonPath expression
+     * @return true if the expression only contains dot notation children.
+     */
+    public static boolean isStreamable(final String path) {
+        return path != null && STREAMABLE_PATH.matcher(path).matches();
+    }
+
+    /**
+     * Move the reader to the node denoted by the JsonPath expression.
+     *
+     * @param path the streamable JsonPath expression
+     * @return true if the node is found in the payload, false otherwise
+     * @throws IOException when the payload is not a valid json
+     * @should skip fields before the root node
+     * @should return false when the root node is missing
+     */
+    public boolean seek(final String path) throws IOException {
+        String[] fields = StringUtil.split(path.substring(1), '.');
+        for (String field : fields) {
+            if (peekToken() != '{' || !seekField(field)) {
+                finished = true;
+                return false;
+            }
+        }
+        int c = peekToken();
+        if (c == -1) {
+            finished = true;
+            return false;
+        }
+        array = (c == '[');
+        if (array)
+            read();
+        return true;
+    }
+
+    /**
+     * Check whether the node found by the <code>seek(String)</code> is a json array.
+     *
+     * @return true if the node is an array.
+     */
+    public boolean isArray() {
+        return array;
+    }
+
+    /**
+     * Read the next element of the node found by the <code>seek(String)</code>. When the node is not an array, the
+     * node itself will be returned as the only element.
+     *
+     * @return the json representation of the next element or null when there's no more element.
+     * @throws IOException when the payload is not a valid json
+     * @should read strings with escaped quotes and unicode escapes
+     * @should read elements with nested arrays and objects
+     * @should return the root object as the only element
+     * @should throw IOException when the payload is truncated
+     */
+    public String next() throws IOException {
+        if (finished)
+            return null;
+
+        StringBuilder builder = new StringBuilder();
+        if (array) {
+            int c = peekToken();
+            if (c == ',') {
+                read();
+                c = peekToken();
+            }
+            if (c == ']') {
+                read();
+                finished = true;
+                return null;
+            }
+            if (c == -1)
+                throw new IOException("Unexpected end of json payload inside an array.");
+            readValue(builder);
+        } else {
+            readValue(builder);
+            finished = true;
+        }
+        return builder.toString();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == NONE)
+            peeked = reader.read();
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = NONE;
+        return c;
+    }
+
+    private int peekToken() throws IOException {
+        int c = peek();
+        while (c != -1 && Character.isWhitespace(c)) {
+            read();
+            c = peek();
+        }
+        return c;
+    }
+
+    /**
+     * Move the reader to the value of the field inside the current object.
+     *
+     * @param name the field name
+     * @return true if the field is found, false otherwise
+     * @throws IOException when the payload is not a valid json
+     */
+    private boolean seekField(final String name) throws IOException {
+        read();
+        while (true) {
+            int c = peekToken();
+            if (c == '}' || c == -1)
+                return false;
+            if (c == ',') {
+                read();
+                continue;
+            }
+            StringBuilder key = new StringBuilder();
+            readString(key);
+            if (peekToken() != ':')
+                throw new IOException("Expecting ':' after field name " + key + " in the json payload.");
+            read();
+            if (StringUtil.equals(name, key.substring(1, key.length() - 1)))
+                return true;
+            readValue(null);
+        }
+    }
+
+    /**
+     * Read the next json value from the payload.
+     *
+     * @param builder the builder to hold the value or null if the value should be skipped
+     * @throws IOException when the payload is not a valid json
+     */
+    private void readValue(final StringBuilder builder) throws IOException {
+        int c = peekToken();
+        if (c == '{' || c == '[')
+            readContainer(builder);
+        else if (c == '"')
+            readString(builder);
+        else
+            readLiteral(builder);
+    }
+
+    private void readContainer(final StringBuilder builder) throws IOException {
+        int depth = 0;
+        do {
+            int c = peek();
+            if (c == -1)
+                throw new IOException("Unexpected end of json payload inside an object or array.");
+            if (c == '"') {
+                readString(builder);
+                continue;
+            }
+            read();
+            if (c == '{' || c == '[')
+                depth++;
+            else if (c == '}' || c == ']')
+                depth--;
+            if (builder != null)
+                builder.append((char) c);
+        } while (depth > 0);
+    }
+
+    private void readString(final StringBuilder builder) throws IOException {
+        int c = read();
+        if (c != '"')
+            throw new IOException("Expecting '\"' in the json payload.");
+        append(builder, c);
+        while (true) {
+            c = read();
+            if (c == -1)
+                throw new IOException("Unexpected end of json payload inside a string.");
+            append(builder, c);
+            if (c == '\\')
+                append(builder, read());
+            else if (c == '"')
+                return;
+        }
+    }
+
+    private void readLiteral(final StringBuilder builder) throws IOException {
+        int c = peek();
+        while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            append(builder, read());
+            c = peek();
+        }
+    }
+
+    private void append(final StringBuilder builder, final int c) {
+        if (builder != null && c != -1)
+            builder.append((char) c);
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.lucene;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit bookkeeping for the indexer. Instead of committing after every single write, each write will get a
+ * request number and the pending writes will be committed together when the commit interval elapsed or when the
+ * number of pending writes reach the commit size.
+ * <p/>
+ * The indexer must call <code>committed(long)</code> after every successful commit, passing the request number that
+ * was read using <code>getRequested()</code> before the commit was started.
+ */
+public class CommitScheduler {
+
+    private final Indexer indexer;
+
+    private final Long interval;
+
+    private final Integer size;
+
+    private final Runnable commitTask;
+
+    private ScheduledExecutorService executor;
+
+    private long requested;
+
+    private long committed;
+
+    private boolean flushing;
+
+    private Exception failure;
+
+    /**
+     * Create the scheduler for the indexer.
+     *
+     * @param indexer  the indexer which will be committed by this scheduler.
+     * @param interval the maximum time in milliseconds a write will wait before committed, or null.
+     * @param size     the maximum number of pending writes before a commit is performed, or null.
+     */
+    public CommitScheduler(final Indexer indexer, final Long interval, final Integer size) {
+        this.indexer = indexer;
+        this.interval = interval;
+        this.size = size;
+        this.commitTask = new Runnable() {
+            @Override
+            public void run() {
+                // any exception escaping the task would silently cancel the periodic commit, leaving the waiting
+                // callers blocked forever.
+                try {
+                    if (hasPending())
+                        CommitScheduler.this.indexer.commit();
+                } catch (IOException e) {
+                    failed(e);
+                } catch (RuntimeException e) {
+                    failed(e);
+                }
+            }
+        };
+    }
+
+    private void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(runnable, "search-api-commit");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        if (interval != null)
+            executor.scheduleWithFixedDelay(commitTask, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        if (!flushing) {
+            flushing = true;
+            executor.execute(commitTask);
+        }
+    }
+
+    private synchronized boolean hasPending() {
+        return requested > committed;
+    }
+
+    /**
+     * Register a new write which need to be committed.
+     *
+     * @return the request number for the write.
+     * @should commit pending writes when the interval elapsed
+     * @should commit pending writes when the number of pending writes reach the size
+     */
+    public synchronized long schedule() {
+        if (executor == null)
+            start();
+        requested++;
+        if (size != null && requested - committed >= size)
+            flush();
+        return requested;
+    }
+
+    /**
+     * Get the request number of the last registered write.
+     *
+     * @return the last request number.
+     */
+    public synchronized long getRequested() {
+        return requested;
+    }
+
+    /**
+     * Mark all writes up to the request number as committed and wake up callers waiting for them.
+     *
+     * @param request the last request number included in the commit.
+     */
+    public synchronized void committed(final long request) {
+        committed = Math.max(committed, request);
+        flushing = false;
+        failure = null;
+        notifyAll();
+    }
+
+    private synchronized void failed(final Exception exception) {
+        flushing = false;
+        failure = exception;
+        notifyAll();
+    }
+
+    /**
+     * Block the caller until the write with the request number is committed. When no commit interval is configured,
+     * calling this method will trigger a commit for all pending writes.
+     *
+     * @param request the request number of the write.
+     * @throws IOException when the commit failed or the caller was interrupted.
+     * @should throw IOException when the commit failed with runtime exception
+     * @should keep committing after the commit failed with runtime exception
+     */
+    public synchronized void await(final long request) throws IOException {
+        while (committed < request) {
+            if (failure != null)
+                throw new IOException("Unable to commit pending changes to the index.", failure);
+            if (interval == null && executor != null)
+                flush();
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the index commit.");
+            }
+        }
+    }
+
+    /**
+     * Stop the background commit thread. Pending writes will not be committed by this scheduler after this call.
+     *
+     * @throws IOException when the caller was interrupted while waiting for the running commit.
+     */
+    public void stop() throws IOException {
+        ScheduledExecutorService service;
+        synchronized (this) {
+            service = executor;
+            executor = null;
+        }
+        if (service != null) {
+            service.shutdown();
+            try {
+                service.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while stopping the commit scheduler.");
+            }
+        }
+    }
+}
@@ -16,11 +16,17 @@ package com.mclinic.search.api.internal.lucene;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.jayway.jsonpath.JsonPath;
-import com.mclinic.search.api.internal.provider.SearcherProvider;
+import com.mclinic.search.api.exception.SearchException;
+import com.mclinic.search.api.internal.json.JsonFieldExtractor;
+import com.mclinic.search.api.internal.json.JsonStreamReader;
 import com.mclinic.search.api.internal.provider.WriterProvider;
 import com.mclinic.search.api.logger.Logger;
+import com.mclinic.search.api.query.QueryBuilder;
 import com.mclinic.search.api.registry.Registry;
 import com.mclinic.search.api.resource.Resource;
+import com.mclinic.search.api.result.Page;
+import com.mclinic.search.api.result.ResultIterator;
+import com.mclinic.search.api.result.ResultList;
 import com.mclinic.search.api.resource.SearchableField;
 import com.mclinic.search.api.serialization.Algorithm;
 import com.mclinic.search.api.util.CollectionUtil;
@@ -29,24 +35,55 @@ import com.mclinic.search.api.util.StringUtil;
 import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.CompressionTools;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldSelector;
+import org.apache.lucene.document.MapFieldSelector;
+import org.apache.lucene.document.NumericField;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
 import org.apache.lucene.queryParser.ParseException;
 import org.apache.lucene.queryParser.QueryParser;
+import org.apache.lucene.search.CachingWrapperFilter;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.FilteredQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryWrapperFilter;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.util.Version;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
 
 public class DefaultIndexer implements Indexer {
 
@@ -54,15 +91,53 @@ public class DefaultIndexer implements Indexer {
 
     private IndexWriter indexWriter;
 
-    private IndexSearcher indexSearcher;
+    private SearcherManager searcherManager;
 
     private WriterProvider writerProvider;
 
-    private SearcherProvider searcherProvider;
-
     private Registry<String, Resource> resourceRegistry;
 
-    private final QueryParser parser;
+    private final ThreadLocal<QueryParser> parsers;
+
+    private final QueryBuilder queryBuilder;
+
+    private final ConcurrentMap<String, Filter> classFilters;
+
+    private final ConcurrentMap<String, Filter> resourceFilters;
+
+    private final ConcurrentMap<Resource, Boolean> keylessResources;
+
+    private final ConcurrentMap<String, JsonFieldExtractor> fieldExtractors;
+
+    private final ConcurrentMap<String, JsonPath> rootPaths;
+
+    private final Lock writeLock;
+
+    private final ThreadLocal<Long> commitRequests;
+
+    private Long commitInterval;
+
+    private Integer commitSize;
+
+    private volatile CommitScheduler commitScheduler;
+
+    private Integer resultCacheSize = DEFAULT_RESULT_CACHE_SIZE;
+
+    private Boolean jsonCompressed = Boolean.FALSE;
+
+    private Integer objectCacheSize = DEFAULT_OBJECT_CACHE_SIZE;
+
+    private final Map<String, Object> objectCache;
+
+    private Integer queryCacheSize = DEFAULT_QUERY_CACHE_SIZE;
+
+    private final Map<QueryKey, ScoreDoc[]> queryCache;
+
+    private long queryCacheVersion;
+
+    private final AtomicLong queryCacheHits;
+
+    private final AtomicLong queryCacheMisses;
 
     private static final String DEFAULT_FIELD_UUID = "_uuid";
 
@@ -72,12 +147,68 @@ public class DefaultIndexer implements Indexer {
 
     private static final String DEFAULT_FIELD_RESOURCE = "_resource";
 
-    private static final Integer DEFAULT_MAX_DOCUMENTS = 20;
+    private static final String DEFAULT_FIELD_KEY = "_key";
+
+    private static final String DEFAULT_FIELD_SOURCE = "_source";
+
+    private static final char DEFAULT_KEY_SEPARATOR = '\u001F';
+
+    private static final Integer DEFAULT_BATCH_SIZE = 100;
+
+    private static final Integer ALL_DOCUMENTS = -1;
+
+    private static final Integer DEFAULT_RESULT_CACHE_SIZE = 100;
+
+    private static final Integer DEFAULT_OBJECT_CACHE_SIZE = 0;
+
+    private static final Integer DEFAULT_QUERY_CACHE_SIZE = 0;
+
+    private static final JsonPath ROOT_PATH = JsonPath.compile("$");
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Stored fields needed to deserialize a document, the stored values of the searchable fields are skipped.
+     */
+    private static final FieldSelector OBJECT_FIELDS =
+            new MapFieldSelector(DEFAULT_FIELD_JSON, DEFAULT_FIELD_RESOURCE, DEFAULT_FIELD_UUID);
+
+    private static final FieldSelector NO_FIELDS = new MapFieldSelector(new String[0]);
 
     @Inject
     protected DefaultIndexer(final @Named("configuration.lucene.document.key") String defaultField,
-                             final Version version, final Analyzer analyzer) {
-        this.parser = new QueryParser(version, defaultField, analyzer);
+                             final Version version, final Analyzer analyzer,
+                             final QueryBuilder queryBuilder) {
+        // query parser is not thread safe, each thread will get their own parser instance.
+        this.parsers = new ThreadLocal<QueryParser>() {
+            @Override
+            protected QueryParser initialValue() {
+                return new TypedQueryParser(version, defaultField, analyzer, queryBuilder);
+            }
+        };
+        this.queryBuilder = queryBuilder;
+        this.classFilters = new ConcurrentHashMap<String, Filter>();
+        this.resourceFilters = new ConcurrentHashMap<String, Filter>();
+        this.keylessResources = new ConcurrentHashMap<Resource, Boolean>();
+        this.fieldExtractors = new ConcurrentHashMap<String, JsonFieldExtractor>();
+        this.rootPaths = new ConcurrentHashMap<String, JsonPath>();
+        // access ordered map, the least recently read object will be evicted when the cache is full.
+        this.objectCache = Collections.synchronizedMap(new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Object> eldest) {
+                return size() > objectCacheSize;
+            }
+        });
+        this.queryCache = new LinkedHashMap<QueryKey, ScoreDoc[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<QueryKey, ScoreDoc[]> eldest) {
+                return size() > queryCacheSize;
+            }
+        };
+        this.queryCacheHits = new AtomicLong();
+        this.queryCacheMisses = new AtomicLong();
+        this.writeLock = new ReentrantLock();
+        this.commitRequests = new ThreadLocal<Long>();
     }
 
     /**
@@ -93,7 +224,11 @@ public class DefaultIndexer implements Indexer {
         this.logger = logger;
     }
 
-    private IndexWriter getIndexWriter() throws IOException {
+    private QueryParser getParser() {
+        return parsers.get();
+    }
+
+    private synchronized IndexWriter getIndexWriter() throws IOException {
         if (indexWriter == null)
             indexWriter = getWriterProvider().get();
         return indexWriter;
@@ -103,18 +238,22 @@ public class DefaultIndexer implements Indexer {
         this.indexWriter = indexWriter;
     }
 
-    private IndexSearcher getIndexSearcher() throws IOException {
-        try {
-            if (indexSearcher == null)
-                indexSearcher = getSearcherProvider().get();
-        } catch (IOException e) {
-            // silently ignoring this exception.
-        }
-        return indexSearcher;
+    /**
+     * Get the searcher manager for this indexer. The searcher manager will open near-real-time reader from the
+     * long-lived index writer, so searching after writing the index will only need to reopen the changed segments
+     * instead of opening the whole index from the directory.
+     *
+     * @return the searcher manager backed by the index writer.
+     * @throws IOException when the searcher manager unable to open reader from the index writer.
+     */
+    private synchronized SearcherManager getSearcherManager() throws IOException {
+        if (searcherManager == null)
+            searcherManager = new SearcherManager(getIndexWriter(), true, new SearcherFactory());
+        return searcherManager;
     }
 
-    private void setIndexSearcher(final IndexSearcher indexSearcher) {
-        this.indexSearcher = indexSearcher;
+    private void setSearcherManager(final SearcherManager searcherManager) {
+        this.searcherManager = searcherManager;
     }
 
     private WriterProvider getWriterProvider() {
@@ -126,13 +265,84 @@ public class DefaultIndexer implements Indexer {
         this.writerProvider = writerProvider;
     }
 
-    private SearcherProvider getSearcherProvider() {
-        return searcherProvider;
+    /**
+     * Set the maximum time in milliseconds pending writes will wait before they are committed. Setting this value will
+     * enable the group commit mode, where create, update and delete will not commit the index on every call.
+     *
+     * @param commitInterval the commit interval in milliseconds.
+     */
+    @Inject(optional = true)
+    private void setCommitInterval(final @Named("configuration.lucene.commit.interval") Long commitInterval) {
+        this.commitInterval = commitInterval;
     }
 
-    @Inject
-    private void setSearcherProvider(final SearcherProvider searcherProvider) {
-        this.searcherProvider = searcherProvider;
+    /**
+     * Set the maximum number of pending writes before they are committed. Setting this value will enable the group
+     * commit mode, where create, update and delete will not commit the index on every call.
+     *
+     * @param commitSize the maximum number of pending writes.
+     */
+    @Inject(optional = true)
+    private void setCommitSize(final @Named("configuration.lucene.commit.size") Integer commitSize) {
+        this.commitSize = commitSize;
+    }
+
+    /**
+     * Get the commit scheduler for the group commit mode.
+     *
+     * @return the commit scheduler or null when the group commit mode is not enabled.
+     */
+    private synchronized CommitScheduler getCommitScheduler() {
+        if (commitScheduler == null && (commitInterval != null || commitSize != null))
+            commitScheduler = new CommitScheduler(this, commitInterval, commitSize);
+        return commitScheduler;
+    }
+
+    /**
+     * Set the maximum number of deserialized objects cached by each result list returned from
+     * <code>getResultList</code>. The default value is 100 objects.
+     *
+     * @param resultCacheSize the maximum number of cached objects per result list.
+     */
+    @Inject(optional = true)
+    private void setResultCacheSize(final @Named("configuration.lucene.result.cache.size") Integer resultCacheSize) {
+        this.resultCacheSize = resultCacheSize;
+    }
+
+    /**
+     * Set the maximum number of deserialized objects shared by all searches. Every written document gets a new
+     * <code>_uuid</code>, so a cached object is never returned for an updated or deleted document. The cached objects
+     * are shared between callers and must not be modified. The default value is 0, which disables the cache.
+     *
+     * @param objectCacheSize the maximum number of cached objects.
+     */
+    @Inject(optional = true)
+    private void setObjectCacheSize(final @Named("configuration.lucene.object.cache.size") Integer objectCacheSize) {
+        this.objectCacheSize = objectCacheSize;
+    }
+
+    /**
+     * Set the maximum number of query results cached by the indexer. Only the hits (document ids and scores) are
+     * cached, keyed by the query, the requested range and the version of the index reader, and the whole cache is
+     * dropped when the searcher is reopened on a newer version of the index. The default value is 0, which disables
+     * the cache.
+     *
+     * @param queryCacheSize the maximum number of cached query results.
+     */
+    @Inject(optional = true)
+    private void setQueryCacheSize(final @Named("configuration.lucene.query.cache.size") Integer queryCacheSize) {
+        this.queryCacheSize = queryCacheSize;
+    }
+
+    /**
+     * Set whether the json representation of the objects should be stored compressed (using deflate) in the index.
+     * Documents written with either setting can always be read, so the setting can be changed on an existing index.
+     *
+     * @param jsonCompressed true to store the json compressed.
+     */
+    @Inject(optional = true)
+    private void setJsonCompressed(final @Named("configuration.lucene.json.compressed") Boolean jsonCompressed) {
+        this.jsonCompressed = jsonCompressed;
     }
 
     private Registry<String, Resource> getResourceRegistry() {
@@ -150,69 +360,131 @@ public class DefaultIndexer implements Indexer {
 
     /**
      * Commit the changes in the index. This method will ensure that deletion, update and addition to the lucene index
-     * are written to the filesystem (persisted).
+     * are written to the filesystem (persisted). The index writer will be kept open and the searcher will be refreshed
+     * to see the committed changes.
      *
      * @throws IOException when the operation encounter errors.
      */
     @Override
     public void commit() throws IOException {
-        if (getIndexWriter() != null) {
+        // prevent the commit and refresh from seeing half finished update from other thread.
+        writeLock.lock();
+        try {
+            CommitScheduler scheduler = getCommitScheduler();
+            long request = scheduler != null ? scheduler.getRequested() : 0;
             getIndexWriter().commit();
-            getIndexWriter().close();
+            getSearcherManager().maybeRefresh();
+            if (scheduler != null)
+                scheduler.committed(request);
+        } finally {
+            writeLock.unlock();
         }
-        // remove the instance
-        setIndexWriter(null);
-        setIndexSearcher(null);
     }
 
     /**
-     * Create a single term lucene query. The value for the query will be surrounded with single quote.
+     * Commit the changes after a single create, update or delete. In the group commit mode, the changes will be
+     * committed together with changes from the other callers by the commit scheduler.
      *
-     * @param field the field on which the query should be performed.
-     * @param value the value for the field
-     * @return the valid lucene query for single term.
+     * @throws IOException when the operation encounter errors.
+     */
+    private void commitChanges() throws IOException {
+        CommitScheduler scheduler = getCommitScheduler();
+        if (scheduler == null)
+            commit();
+        else
+            commitRequests.set(scheduler.schedule());
+    }
+
+    /**
+     * Block the caller until the last create, update or delete performed by the caller's thread is committed. This
+     * method will return immediately when the group commit mode is not enabled.
+     *
+     * @throws IOException when the commit failed or the caller was interrupted.
      */
-    private String createQuery(final String field, final String value) {
-        return "(" + field + ":" + StringUtil.quote(value) + ")";
+    @Override
+    public void awaitCommit() throws IOException {
+        CommitScheduler scheduler = getCommitScheduler();
+        Long request = commitRequests.get();
+        if (scheduler != null && request != null)
+            scheduler.await(request);
+    }
+
+    /**
+     * Release the searcher manager and close the index writer. This method will also commit pending changes in the
+     * index writer. The indexer can still be used after calling this method, but it will need to reopen the index.
+     * Caller must ensure no other thread is using the indexer while it's being closed.
+     *
+     * @throws IOException when the operation encounter errors.
+     */
+    @Override
+    public void close() throws IOException {
+        // read the field, there's nothing to stop when no write ever started the scheduler.
+        CommitScheduler scheduler = commitScheduler;
+        if (scheduler != null) {
+            scheduler.stop();
+            // commit the remaining pending writes so waiting callers are released.
+            if (indexWriter != null)
+                commit();
+        }
+        release();
+    }
+
+    @Override
+    public long getQueryCacheHits() {
+        return queryCacheHits.get();
+    }
+
+    @Override
+    public long getQueryCacheMisses() {
+        return queryCacheMisses.get();
+    }
+
+    private synchronized void release() throws IOException {
+        if (searcherManager != null)
+            searcherManager.close();
+        setSearcherManager(null);
+
+        if (indexWriter != null)
+            indexWriter.close();
+        setIndexWriter(null);
+
+        objectCache.clear();
+        // the index may be changed by another writer before it's reopened.
+        keylessResources.clear();
+        synchronized (queryCache) {
+            queryCache.clear();
+        }
     }
 
     /**
-     * Create lucene query string based on the searchable field name and value. The values for the searchable field
-     * will be retrieved from the <code>jsonObject</code>. This method will try to create a unique query in the case
-     * where a searchable field is marked as unique. Otherwise the method will create a query string using all
-     * available searchable fields.
+     * Create lucene query based on the searchable field name and value. The values for the searchable field will be
+     * retrieved from the <code>jsonObject</code>. This method will try to create a unique query in the case where a
+     * searchable field is marked as unique. Otherwise the method will create a query using all available searchable
+     * fields.
      *
      * @param jsonObject       the json object from which the value for each field can be retrieved from.
      * @param searchableFields the searchable fields definition
-     * @return query string which could be either a unique or full searchable field based query.
+     * @return query which could be either a unique or full searchable field based query.
      */
-    private String createSearchableFieldQuery(final Object jsonObject, final List<SearchableField> searchableFields) {
-        boolean uniqueExists = false;
-        StringBuilder fullQuery = new StringBuilder();
-        StringBuilder uniqueQuery = new StringBuilder();
+    private Query createSearchableFieldQuery(final Object jsonObject, final List<SearchableField> searchableFields) {
+        List<Query> fullQueries = new ArrayList<Query>();
+        List<Query> uniqueQueries = new ArrayList<Query>();
         for (SearchableField searchableField : searchableFields) {
-            String value = JsonPath.read(jsonObject, searchableField.getExpression()).toString();
-            String query = createQuery(searchableField.getName(), value);
+            String value = searchableField.getPath().read(jsonObject).toString();
+            Query query = queryBuilder.term(searchableField.getName(), value);
 
-            if (searchableField.isUnique()) {
-                uniqueExists = true;
-                if (!StringUtil.isBlank(uniqueQuery.toString()))
-                    uniqueQuery.append(" AND ");
-                uniqueQuery.append(query);
-            }
+            if (searchableField.isUnique())
+                uniqueQueries.add(query);
 
             // only create the full query if we haven't found any unique key in the searchable fields.
-            if (!uniqueExists) {
-                if (!StringUtil.isBlank(fullQuery.toString()))
-                    fullQuery.append(" AND ");
-                fullQuery.append(query);
-            }
+            if (uniqueQueries.isEmpty())
+                fullQueries.add(query);
         }
 
-        if (uniqueExists)
-            return uniqueQuery.toString();
+        if (!uniqueQueries.isEmpty())
+            return queryBuilder.and(uniqueQueries.toArray(new Query[uniqueQueries.size()]));
         else
-            return fullQuery.toString();
+            return queryBuilder.and(fullQueries.toArray(new Query[fullQueries.size()]));
     }
 
     /**
@@ -228,10 +500,8 @@ public class DefaultIndexer implements Indexer {
      * @param clazz the clazz for which the query is based on
      * @return the base query for a resource
      */
-    private String createClassQuery(final Class clazz) {
-        StringBuilder builder = new StringBuilder();
-        builder.append(createQuery(DEFAULT_FIELD_CLASS, clazz.getName()));
-        return builder.toString();
+    private Query createClassQuery(final Class<?> clazz) {
+        return queryBuilder.term(DEFAULT_FIELD_CLASS, clazz.getName());
     }
 
     /**
@@ -241,46 +511,602 @@ public class DefaultIndexer implements Indexer {
      * @param resource the resource for which the query is based on
      * @return the base query for a resource
      */
-    private String createResourceQuery(final Resource resource) {
-        StringBuilder builder = new StringBuilder();
-        builder.append(createQuery(DEFAULT_FIELD_RESOURCE, resource.getName()));
-        return builder.toString();
+    private Query createResourceQuery(final Resource resource) {
+        return queryBuilder.term(DEFAULT_FIELD_RESOURCE, resource.getName());
     }
 
     /**
-     * Search the local lucene repository for documents with similar information with information inside the
-     * <code>query</code>. Search can return multiple documents with similar information or empty list when no
-     * document have similar information with the <code>query</code>.
+     * Get the filter to limit the search to documents of a certain class. The filter is created once for each class
+     * and caches the matching documents of each index segment, so the class query is only executed for segments
+     * written after the previous search. Cached segments are dropped together with the segment reader when the
+     * searcher is reopened.
      *
-     * @param query the lucene query.
-     * @return objects with similar information with the query.
-     * @throws IOException when the search encounter error.
+     * @param clazz the class of the documents.
+     * @return the cached class filter.
      */
-    private List<Document> findDocuments(final Query query) throws IOException {
+    private Filter getClassFilter(final Class<?> clazz) {
+        Filter filter = classFilters.get(clazz.getName());
+        if (filter == null) {
+            filter = new CachingWrapperFilter(new QueryWrapperFilter(createClassQuery(clazz)));
+            Filter existing = classFilters.putIfAbsent(clazz.getName(), filter);
+            if (existing != null)
+                filter = existing;
+        }
+        return filter;
+    }
+
+    /**
+     * Get the filter to limit the search to documents of a certain resource. The filter is cached the same way as the
+     * class filter.
+     *
+     * @param resource the resource used to register the documents.
+     * @return the cached resource filter.
+     * @see #getClassFilter(Class)
+     */
+    private Filter getResourceFilter(final Resource resource) {
+        Filter filter = resourceFilters.get(resource.getName());
+        if (filter == null) {
+            filter = new CachingWrapperFilter(new QueryWrapperFilter(createResourceQuery(resource)));
+            Filter existing = resourceFilters.putIfAbsent(resource.getName(), filter);
+            if (existing != null)
+                filter = existing;
+        }
+        return filter;
+    }
+
+    /**
+     * Create the query to search objects of a certain class. The class query will be combined with the search string
+     * when the search string is not empty.
+     *
+     * @param searchString the search string to limit the returned objects.
+     * @param clazz        the class of the returned objects.
+     * @return the lucene query.
+     * @throws ParseException when the search string is not a valid lucene query.
+     */
+    private Query createQuery(final String searchString, final Class<?> clazz) throws ParseException {
+        return createQuery(parseQuery(searchString), clazz);
+    }
+
+    /**
+     * Create the query to search objects of a certain resource. The resource query will be combined with the search
+     * string when the search string is not empty.
+     *
+     * @param searchString the search string to limit the returned objects.
+     * @param resource     the resource used to register the returned objects.
+     * @return the lucene query.
+     * @throws ParseException when the search string is not a valid lucene query.
+     */
+    private Query createQuery(final String searchString, final Resource resource) throws ParseException {
+        return createQuery(parseQuery(searchString), resource);
+    }
+
+    /**
+     * Parse the search string into lucene query.
+     *
+     * @param searchString the search string.
+     * @return the lucene query or null when the search string is empty.
+     * @throws ParseException when the search string is not a valid lucene query.
+     */
+    private Query parseQuery(final String searchString) throws ParseException {
+        if (StringUtil.isEmpty(searchString))
+            return null;
+        return getParser().parse(searchString);
+    }
+
+    /**
+     * Create the query to search objects of a certain class. The class is applied as a cached filter instead of a
+     * scored clause, and the query matches all documents of the class when it's null.
+     *
+     * @param query the query to limit the returned objects or null.
+     * @param clazz the class of the returned objects.
+     * @return the lucene query.
+     */
+    private Query createQuery(final Query query, final Class<?> clazz) {
+        Query classQuery = new FilteredQuery(query == null ? new MatchAllDocsQuery() : query, getClassFilter(clazz));
+
+        if (getLogger().isDebugEnabled())
+            getLogger().debug(this.getClass().getSimpleName(), "Query for class " + clazz.getName() + ": "
+                    + classQuery);
+
+        return classQuery;
+    }
+
+    /**
+     * Create the query to search objects of a certain resource. The resource is applied as a cached filter instead of
+     * a scored clause, and the query matches all documents of the resource when it's null.
+     *
+     * @param query    the query to limit the returned objects or null.
+     * @param resource the resource used to register the returned objects.
+     * @return the lucene query.
+     */
+    private Query createQuery(final Query query, final Resource resource) {
+        Query resourceQuery =
+                new FilteredQuery(query == null ? new MatchAllDocsQuery() : query, getResourceFilter(resource));
+
+        if (getLogger().isDebugEnabled())
+            getLogger().debug(this.getClass().getSimpleName(), "Query for resource " + resource.getName() + ": "
+                    + resourceQuery);
+
+        return resourceQuery;
+    }
+
+    /**
+     * Find the documents indexed with the unique key terms. Each term is looked up directly in the term dictionary of
+     * every index segment, without query parsing, scoring or collecting the hits. The lookup stops at the second
+     * document, which is enough to find out whether the key can uniquely identify an object.
+     *
+     * @param keyTerms the unique key terms.
+     * @return at most two documents indexed with the key terms.
+     * @throws IOException when reading the index encounter error.
+     */
+    private List<Document> findKeyDocuments(final List<Term> keyTerms) throws IOException {
         List<Document> documents = new ArrayList<Document>();
-        IndexSearcher searcher = getIndexSearcher();
-        if (searcher != null) {
-            TopDocs docs = searcher.search(query, DEFAULT_MAX_DOCUMENTS);
-            ScoreDoc[] hits = docs.scoreDocs;
-            for (ScoreDoc hit : hits)
-                documents.add(searcher.doc(hit.doc));
+        SearcherManager manager = getSearcherManager();
+        IndexSearcher searcher = manager.acquire();
+        try {
+            IndexReader reader = searcher.getIndexReader();
+            for (Term keyTerm : keyTerms) {
+                TermDocs termDocs = reader.termDocs(keyTerm);
+                try {
+                    while (documents.size() < 2 && termDocs.next())
+                        documents.add(reader.document(termDocs.doc(), OBJECT_FIELDS));
+                } finally {
+                    termDocs.close();
+                }
+            }
+        } finally {
+            manager.release(searcher);
         }
         return documents;
     }
 
     /**
-     * Write json representation of a single object as a single document entry inside Lucene index.
+     * Find the documents of the resources indexed with the unique key. Resources with documents written without the
+     * unique key term are searched using their unique searchable field instead.
      *
-     * @param jsonObject the json object to be written to the index
-     * @param resource   the configuration to transform json to lucene document
-     * @param writer     the lucene index writer
-     * @throws java.io.IOException when writing document failed
+     * @param key       the value of the unique searchable field.
+     * @param resources the resource definitions used to register the json to lucene index.
+     * @return at most two documents of the resources with the unique key.
+     * @throws IOException when reading the index encounter error.
      */
-    private void writeObject(final Object jsonObject, final Resource resource, final IndexWriter writer)
+    private List<Document> findKeyDocuments(final String key, final List<Resource> resources) throws IOException {
+        List<Term> keyTerms = new ArrayList<Term>();
+        List<Query> keylessQueries = new ArrayList<Query>();
+        for (Resource resource : resources) {
+            if (!isKeyless(resource)) {
+                keyTerms.add(createKeyTerm(key, resource));
+                continue;
+            }
+            for (SearchableField searchableField : resource.getSearchableFields()) {
+                if (searchableField.isUnique())
+                    keylessQueries.add(queryBuilder.and(createResourceQuery(resource),
+                            queryBuilder.term(searchableField.getName(), key)));
+            }
+        }
+
+        List<Document> documents = findKeyDocuments(keyTerms);
+        for (Query query : keylessQueries) {
+            if (documents.size() < 2)
+                documents.addAll(findDocuments(query, 0, 2 - documents.size(), OBJECT_FIELDS));
+        }
+        return documents;
+    }
+
+    /**
+     * Search the local lucene repository for a range of documents matching the <code>query</code>. The documents are
+     * ordered by their relevance to the query.
+     *
+     * @param query    the lucene query.
+     * @param offset   the number of matching documents to skip.
+     * @param limit    the maximum number of returned documents or <code>ALL_DOCUMENTS</code> to return every match.
+     * @param selector the selector of the stored fields loaded for each document.
+     * @return the matching documents or empty list.
+     * @throws IOException              when the search encounter error.
+     * @throws IllegalArgumentException when the offset is negative.
+     */
+    private List<Document> findDocuments(final Query query, final int offset, final int limit,
+                                         final FieldSelector selector) throws IOException {
+        List<Document> documents = new ArrayList<Document>();
+        SearcherManager manager = getSearcherManager();
+        IndexSearcher searcher = manager.acquire();
+        try {
+            for (ScoreDoc hit : findHits(searcher, query, offset, limit))
+                documents.add(searcher.doc(hit.doc, selector));
+        } finally {
+            manager.release(searcher);
+        }
+        return documents;
+    }
+
+    /**
+     * Search for a range of hits matching the <code>query</code> using the searcher. The hits are ordered by their
+     * relevance to the query.
+     *
+     * @param searcher the searcher to perform the search.
+     * @param query    the lucene query.
+     * @param offset   the number of matching hits to skip.
+     * @param limit    the maximum number of returned hits or <code>ALL_DOCUMENTS</code> to return every match.
+     * @return the matching hits or empty array.
+     * @throws IOException              when the search encounter error.
+     * @throws IllegalArgumentException when the offset is negative.
+     */
+    private ScoreDoc[] findHits(final IndexSearcher searcher, final Query query, final int offset, final int limit)
             throws IOException {
+        if (offset < 0)
+            throw new IllegalArgumentException("Offset must not be negative: " + offset + ".");
+        if (queryCacheSize <= 0)
+            return searchHits(searcher, query, offset, limit);
+
+        long version = searcher.getIndexReader().getVersion();
+        ScoreDoc[] hits = null;
+        synchronized (queryCache) {
+            // hits of an older reader are useless once the searcher is reopened, drop them all at once.
+            if (version > queryCacheVersion) {
+                queryCache.clear();
+                queryCacheVersion = version;
+            }
+            // a searcher acquired before the last reopen must not read the hits of the newer reader.
+            if (version == queryCacheVersion)
+                hits = queryCache.get(new QueryKey(query, offset, limit));
+        }
+        if (hits != null) {
+            queryCacheHits.incrementAndGet();
+            return hits;
+        }
+
+        queryCacheMisses.incrementAndGet();
+        hits = searchHits(searcher, query, offset, limit);
+        synchronized (queryCache) {
+            if (queryCacheVersion == version)
+                // the query is cloned, so changing the caller's query later won't change the cache key.
+                queryCache.put(new QueryKey((Query) query.clone(), offset, limit), hits);
+        }
+        return hits;
+    }
+
+    /**
+     * Execute the search for a range of hits matching the <code>query</code> without going through the query cache.
+     *
+     * @param searcher the searcher to perform the search.
+     * @param query    the lucene query.
+     * @param offset   the number of matching hits to skip.
+     * @param limit    the maximum number of returned hits or <code>ALL_DOCUMENTS</code> to return every match.
+     * @return the matching hits or empty array.
+     * @throws IOException when the search encounter error.
+     */
+    private ScoreDoc[] searchHits(final IndexSearcher searcher, final Query query, final int offset, final int limit)
+            throws IOException {
+        ScoreDoc[] hits;
+        if (limit == ALL_DOCUMENTS) {
+            // collect every hit in a single pass, the priority queue would need to be sized for the whole index.
+            AllHitsCollector collector = new AllHitsCollector();
+            searcher.search(query, collector);
+            hits = collector.getHits();
+        } else {
+            // the searcher will never return more than max doc hits, use it to cap the size of the priority queue.
+            int size = (int) Math.min((long) offset + limit, searcher.maxDoc());
+            if (limit <= 0 || size <= offset)
+                return new ScoreDoc[0];
+            hits = searcher.search(query, size).scoreDocs;
+        }
+        if (offset == 0)
+            return hits;
+
+        ScoreDoc[] range = new ScoreDoc[Math.max(0, hits.length - offset)];
+        System.arraycopy(hits, offset, range, 0, range.length);
+        return range;
+    }
+
+    /**
+     * Search the local lucene repository for a page of objects matching the <code>query</code>, starting after the
+     * <code>cursor</code>.
+     *
+     * @param query    the lucene query.
+     * @param cursor   the last hit of the previous page or null to get the first page.
+     * @param limit    the maximum number of objects in the page.
+     * @param clazz    the class of the returned objects.
+     * @param resource the resource used to deserialize the objects or null to use the resource of each document.
+     * @return the page of matching objects.
+     * @throws IOException when the search encounter error.
+     */
+    private <T> Page<T> findPage(final Query query, final ScoreDoc cursor, final int limit, final Class<T> clazz,
+                                 final Resource resource) throws IOException {
+        List<T> objects = new ArrayList<T>();
+        if (limit <= 0)
+            return new Page<T>(objects, cursor, 0, true);
+
+        SearcherManager manager = getSearcherManager();
+        IndexSearcher searcher = manager.acquire();
+        try {
+            int size = Math.max(1, Math.min(limit, searcher.maxDoc()));
+            TopDocs docs = searcher.searchAfter(cursor, query, size);
+            ScoreDoc last = cursor;
+            for (ScoreDoc hit : docs.scoreDocs) {
+                objects.add(clazz.cast(deserialize(searcher.doc(hit.doc, OBJECT_FIELDS), resource)));
+                last = hit;
+            }
+            return new Page<T>(objects, last, docs.totalHits, docs.scoreDocs.length == limit);
+        } finally {
+            manager.release(searcher);
+        }
+    }
+
+    /**
+     * Create an iterator over all objects matching the <code>query</code>.
+     *
+     * @param query    the lucene query.
+     * @param clazz    the class of the returned objects.
+     * @param resource the resource used to deserialize the objects or null to use the resource of each document.
+     * @return the iterator over the matching objects.
+     * @throws IOException when the search encounter error.
+     */
+    private <T> ResultIterator<T> iterateDocuments(final Query query, final Class<T> clazz, final Resource resource)
+            throws IOException {
+        return new DocumentIterator<T>(getSearcherManager(), query, DEFAULT_BATCH_SIZE, OBJECT_FIELDS) {
+            @Override
+            protected T toObject(final Document document) {
+                return clazz.cast(deserialize(document, resource));
+            }
+        };
+    }
+
+    /**
+     * Create a lazy list over all objects matching the <code>query</code>. The searcher used to find the hits is held
+     * by the list until the list is closed.
+     *
+     * @param query    the lucene query.
+     * @param clazz    the class of the returned objects.
+     * @param resource the resource used to deserialize the objects or null to use the resource of each document.
+     * @return the lazy list over the matching objects.
+     * @throws IOException when the search encounter error.
+     */
+    private <T> ResultList<T> findResultList(final Query query, final Class<T> clazz, final Resource resource)
+            throws IOException {
+        SearcherManager manager = getSearcherManager();
+        IndexSearcher searcher = manager.acquire();
+        boolean created = false;
+        try {
+            ScoreDoc[] hits = findHits(searcher, query, 0, ALL_DOCUMENTS);
+            ResultList<T> resultList = new DocumentList<T>(manager, searcher, hits, resultCacheSize, OBJECT_FIELDS) {
+                @Override
+                protected T toObject(final Document document) {
+                    return clazz.cast(deserialize(document, resource));
+                }
+            };
+            created = true;
+            return resultList;
+        } finally {
+            // the list will release the searcher when it's closed.
+            if (!created)
+                manager.release(searcher);
+        }
+    }
+
+    /**
+     * Convert the lucene document into the object representation using the algorithm of the resource. When the object
+     * cache is enabled, the object is cached using the document's <code>_uuid</code> and the name of the resource.
+     *
+     * @param document the lucene document.
+     * @param resource the resource used to deserialize the object or null to use the resource of the document.
+     * @return the object representation of the document.
+     */
+    private Object deserialize(final Document document, final Resource resource) {
+        Resource documentResource = resource;
+        if (documentResource == null)
+            documentResource = getResourceRegistry().getEntryValue(document.get(DEFAULT_FIELD_RESOURCE));
+        Algorithm algorithm = documentResource.getAlgorithm();
+        if (objectCacheSize <= 0)
+            return algorithm.deserialize(readJson(document));
+
+        String cacheKey = document.get(DEFAULT_FIELD_UUID) + DEFAULT_KEY_SEPARATOR + documentResource.getName();
+        Object object = objectCache.get(cacheKey);
+        if (object == null) {
+            object = algorithm.deserialize(readJson(document));
+            objectCache.put(cacheKey, object);
+        }
+        return object;
+    }
+
+    /**
+     * Read the json representation stored in the document, decompressing it when it was stored compressed.
+     *
+     * @param document the lucene document.
+     * @return the json representation of the object.
+     */
+    private String readJson(final Document document) {
+        byte[] compressed = document.getBinaryValue(DEFAULT_FIELD_JSON);
+        if (compressed == null)
+            return document.get(DEFAULT_FIELD_JSON);
+        try {
+            return CompressionTools.decompressString(compressed);
+        } catch (DataFormatException e) {
+            throw new SearchException("Unable to decompress the json of document: '"
+                    + document.get(DEFAULT_FIELD_UUID) + "'.", e);
+        }
+    }
+
+    /**
+     * Get the extractor to read the values of all searchable fields of the resource in a single traversal. The
+     * extractor is created once for each resource and recreated when the searchable fields of the resource changed.
+     *
+     * @param resource the resource definition used to register the json to lucene index.
+     * @return the extractor for all searchable fields of the resource.
+     */
+    private JsonFieldExtractor getFieldExtractor(final Resource resource) {
+        List<SearchableField> searchableFields = resource.getSearchableFields();
+        JsonFieldExtractor extractor = fieldExtractors.get(resource.getName());
+        if (extractor == null || !extractor.getSearchableFields().equals(searchableFields)) {
+            extractor = new JsonFieldExtractor(searchableFields);
+            fieldExtractors.put(resource.getName(), extractor);
+        }
+        return extractor;
+    }
+
+    /**
+     * Get the compiled root node's JsonPath expression of the resource. The expression is compiled once and then
+     * evaluated against every json payload loaded using resources with the same root node.
+     *
+     * @param resource the resource definition used to register the json to lucene index.
+     * @return the compiled root node's JsonPath expression.
+     */
+    private JsonPath getRootPath(final Resource resource) {
+        JsonPath rootPath = rootPaths.get(resource.getRootNode());
+        if (rootPath == null) {
+            rootPath = JsonPath.compile(resource.getRootNode());
+            rootPaths.put(resource.getRootNode(), rootPath);
+        }
+        return rootPath;
+    }
+
+    /**
+     * Create the unique key term for the json object. The key is composed from the resource name and the values of
+     * all unique searchable fields of the resource, and it's indexed without analyzing so it can be used to replace or
+     * delete the document without searching the index first. The values are lower cased, so the key match the unique
+     * values regardless of their case the same way as the analyzed searchable fields.
+     *
+     * @param extractor the extractor used to read the searchable field values.
+     * @param values    the searchable field values read from the json object.
+     * @param resource  the resource definition used to register the json to lucene index.
+     * @return the unique key term or null when the resource doesn't have any unique searchable field.
+     * @throws SearchException when the json object doesn't have value for one of the unique searchable fields.
+     */
+    private Term createKeyTerm(final JsonFieldExtractor extractor, final Object[] values, final Resource resource) {
+        boolean uniqueExists = false;
+        StringBuilder builder = new StringBuilder(resource.getName());
+        List<SearchableField> searchableFields = extractor.getSearchableFields();
+        for (int i = 0; i < searchableFields.size(); i++) {
+            SearchableField searchableField = searchableFields.get(i);
+            if (searchableField.isUnique()) {
+                if (values[i] == null)
+                    throw new SearchException("Unable to identify an object of resource: '" + resource.getName()
+                            + "' without value for the unique field: '" + searchableField.getName() + "'.");
+                uniqueExists = true;
+                builder.append(DEFAULT_KEY_SEPARATOR).append(createKeyValue(values[i]));
+            }
+        }
+
+        if (uniqueExists)
+            return new Term(DEFAULT_FIELD_KEY, builder.toString());
+        else
+            return null;
+    }
+
+    /**
+     * Create the unique key term from the value of the unique searchable field of the resource. The term is the same
+     * term created when the object is indexed, so it only match objects of resources with a single unique field.
+     *
+     * @param key      the value of the unique searchable field.
+     * @param resource the resource definition used to register the json to lucene index.
+     * @return the unique key term.
+     */
+    private Term createKeyTerm(final String key, final Resource resource) {
+        return new Term(DEFAULT_FIELD_KEY, resource.getName() + DEFAULT_KEY_SEPARATOR + createKeyValue(key));
+    }
+
+    /**
+     * Create the value of a unique searchable field used in the unique key term.
+     *
+     * @param value the value of the unique searchable field.
+     * @return the lower cased value.
+     */
+    private String createKeyValue(final Object value) {
+        return String.valueOf(value).toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Check whether the index contains documents of the resource written without the unique key term. Index written
+     * before the key term was introduced doesn't have the key, so the documents of such index must still be replaced
+     * or deleted by searching the unique searchable fields. The check is performed once for each resource object until
+     * the index is released, documents written afterwards always have the key term. A resource registered again under
+     * the same name is a new resource object, so it's checked again.
+     *
+     * @param resource the resource definition used to register the json to lucene index.
+     * @return true when the index contains documents of the resource without the unique key term.
+     * @throws IOException when reading the index encounter error.
+     */
+    private boolean isKeyless(final Resource resource) throws IOException {
+        Boolean keyless = keylessResources.get(resource);
+        if (keyless == null) {
+            Query query = queryBuilder.and(createResourceQuery(resource),
+                    queryBuilder.not(queryBuilder.range(DEFAULT_FIELD_KEY, null, null, true, true)));
+            // search without the query cache, the check isn't a search requested by the caller.
+            SearcherManager manager = getSearcherManager();
+            IndexSearcher searcher = manager.acquire();
+            try {
+                TotalHitCountCollector collector = new TotalHitCountCollector();
+                searcher.search(query, collector);
+                keyless = collector.getTotalHits() > 0;
+            } finally {
+                manager.release(searcher);
+            }
+            keylessResources.put(resource, keyless);
+        }
+        return keyless;
+    }
+
+    /**
+     * Create the term to identify all documents loaded from a single source (e.g. a file) using the resource. The term
+     * is indexed without analyzing so all documents from the source can be deleted without searching the index first.
+     *
+     * @param resource the resource definition used to register the json to lucene index.
+     * @param source   the name of the source or null.
+     * @return the source term or null when there's no source.
+     */
+    private Term createSourceTerm(final Resource resource, final String source) {
+        if (source == null)
+            return null;
+        return new Term(DEFAULT_FIELD_SOURCE, resource.getName() + DEFAULT_KEY_SEPARATOR + source);
+    }
 
+    /**
+     * Create the trie encoded field for the value of a numeric or date searchable field.
+     *
+     * @param searchableField the searchable field definition.
+     * @param value           the value of the field read from the json object.
+     * @return the numeric lucene field.
+     */
+    private NumericField createNumericField(final SearchableField searchableField, final Object value) {
+        NumericField field = new NumericField(searchableField.getName(), Field.Store.YES, true);
+        Number number;
+        try {
+            number = searchableField.getType().toNumber(value);
+        } catch (IllegalArgumentException e) {
+            throw new SearchException("Unable to convert value: '" + value + "' of field: '"
+                    + searchableField.getName() + "' to " + searchableField.getType().name().toLowerCase() + ".", e);
+        }
+        switch (searchableField.getType()) {
+            case INT:
+                return field.setIntValue(number.intValue());
+            case DOUBLE:
+                return field.setDoubleValue(number.doubleValue());
+            default:
+                return field.setLongValue(number.longValue());
+        }
+    }
+
+    /**
+     * Create the lucene document for json representation of a single object.
+     *
+     * @param jsonObject the json object to be written to the index
+     * @param extractor  the extractor used to read the searchable field values
+     * @param values     the searchable field values read from the json object
+     * @param resource   the configuration to transform json to lucene document
+     * @param keyTerm    the unique key term of the json object or null
+     * @param sourceTerm the term of the source the json object was loaded from or null
+     * @return the lucene document
+     */
+    private Document createDocument(final Object jsonObject, final JsonFieldExtractor extractor,
+                                    final Object[] values, final Resource resource, final Term keyTerm,
+                                    final Term sourceTerm) {
         Document document = new Document();
-        document.add(new Field(DEFAULT_FIELD_JSON, jsonObject.toString(), Field.Store.YES, Field.Index.NO));
+        if (jsonCompressed) {
+            // reading the json costs the same with any deflate level, use the fastest level to keep indexing cheap.
+            byte[] json = jsonObject.toString().getBytes(UTF_8);
+            document.add(new Field(DEFAULT_FIELD_JSON,
+                    CompressionTools.compress(json, 0, json.length, Deflater.BEST_SPEED)));
+        } else {
+            document.add(new Field(DEFAULT_FIELD_JSON, jsonObject.toString(), Field.Store.YES, Field.Index.NO));
+        }
         document.add(new Field(DEFAULT_FIELD_UUID, UUID.randomUUID().toString(), Field.Store.YES,
                 Field.Index.ANALYZED_NO_NORMS));
         document.add(new Field(DEFAULT_FIELD_CLASS, resource.getResourceObject().getName(), Field.Store.YES,
@@ -288,21 +1114,55 @@ public class DefaultIndexer implements Indexer {
         document.add(new Field(DEFAULT_FIELD_RESOURCE, resource.getName(), Field.Store.YES,
                 Field.Index.ANALYZED_NO_NORMS));
 
-        for (SearchableField searchableField : resource.getSearchableFields()) {
-            Object value = JsonPath.read(jsonObject, searchableField.getExpression());
-            document.add(new Field(searchableField.getName(), String.valueOf(value), Field.Store.YES,
-                    Field.Index.ANALYZED_NO_NORMS));
+        List<SearchableField> searchableFields = extractor.getSearchableFields();
+        for (int i = 0; i < searchableFields.size(); i++) {
+            SearchableField searchableField = searchableFields.get(i);
+            if (searchableField.getType().isNumeric()) {
+                // numeric field without value is left out, so it won't match any range query on the field.
+                if (values[i] != null)
+                    document.add(createNumericField(searchableField, values[i]));
+            } else {
+                document.add(new Field(searchableField.getName(), String.valueOf(values[i]), Field.Store.YES,
+                        Field.Index.ANALYZED_NO_NORMS));
+            }
         }
 
+        if (keyTerm != null)
+            document.add(new Field(DEFAULT_FIELD_KEY, keyTerm.text(), Field.Store.NO,
+                    Field.Index.NOT_ANALYZED_NO_NORMS));
+
+        if (sourceTerm != null)
+            document.add(new Field(DEFAULT_FIELD_SOURCE, sourceTerm.text(), Field.Store.NO,
+                    Field.Index.NOT_ANALYZED_NO_NORMS));
+
         if (getLogger().isDebugEnabled())
             getLogger().debug(this.getClass().getSimpleName(), "Writing document: " + document);
 
-        writer.addDocument(document);
+        return document;
+    }
+
+    /**
+     * Write json representation of a single object as a single document entry inside Lucene index.
+     *
+     * @param jsonObject the json object to be written to the index
+     * @param resource   the configuration to transform json to lucene document
+     * @param writer     the lucene index writer
+     * @param sourceTerm the term of the source the json object was loaded from or null
+     * @throws java.io.IOException when writing document failed
+     */
+    private void writeObject(final Object jsonObject, final Resource resource, final IndexWriter writer,
+                             final Term sourceTerm) throws IOException {
+        JsonFieldExtractor extractor = getFieldExtractor(resource);
+        Object[] values = extractor.extract(jsonObject);
+        Term keyTerm = createKeyTerm(extractor, values, resource);
+        writer.addDocument(createDocument(jsonObject, extractor, values, resource, keyTerm, sourceTerm));
     }
 
     /**
-     * Delete an entry from the lucene index. The method will search for a single entry in the index (throwing
-     * IOException when more than one index match the object).
+     * Delete an entry from the lucene index. When the resource have unique searchable fields and the index doesn't
+     * contain documents of the resource without the unique key term, the entry will be deleted using the unique key
+     * term. Otherwise, the method will search for a single entry in the index (throwing IOException when more than one
+     * index match the object).
      *
      * @param jsonObject  the json object to be deleted.
      * @param resource    the resource definition used to register the json to lucene index.
@@ -312,183 +1172,506 @@ public class DefaultIndexer implements Indexer {
      */
     private void deleteObject(final Object jsonObject, final Resource resource, final IndexWriter indexWriter)
             throws ParseException, IOException {
-        String queryString =
-                createResourceQuery(resource) + " AND "
-                        + createSearchableFieldQuery(jsonObject, resource.getSearchableFields());
+        JsonFieldExtractor extractor = getFieldExtractor(resource);
+        Term keyTerm = createKeyTerm(extractor, extractor.extract(jsonObject), resource);
+        if (keyTerm != null && !isKeyless(resource)) {
+            indexWriter.deleteDocuments(keyTerm);
+            return;
+        }
+
+        Query query = queryBuilder.and(createResourceQuery(resource),
+                createSearchableFieldQuery(jsonObject, resource.getSearchableFields()));
 
         if (getLogger().isDebugEnabled())
-            getLogger().debug(this.getClass().getSimpleName(), "Query deleteObject(): " + queryString);
+            getLogger().debug(this.getClass().getSimpleName(), "Query deleteObject(): " + query);
 
-        Query query = parser.parse(queryString);
-        List<Document> documents = findDocuments(query);
-        if (!CollectionUtil.isEmpty(documents) && documents.size() > 1)
-            throw new IOException("Unable to uniquely identify an object using the json object in the repository.");
-        indexWriter.deleteDocuments(query);
+        writeLock.lock();
+        try {
+            List<Document> documents = findDocuments(query, 0, 2, NO_FIELDS);
+            if (!CollectionUtil.isEmpty(documents) && documents.size() > 1)
+                throw new IOException("Unable to uniquely identify an object using the json object in the repository.");
+            indexWriter.deleteDocuments(query);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
-     * Update an object inside the lucene index with a new data. Updating process practically means deleting old object
-     * and then adding the new object.
+     * Update an object inside the lucene index with a new data. When the resource have unique searchable fields and
+     * the index doesn't contain documents of the resource without the unique key term, the object will be replaced in
+     * a single step using the unique key term. Otherwise, updating process practically means deleting old object and
+     * then adding the new object.
      *
      * @param jsonObject  the json object to be updated.
      * @param resource    the resource definition used to register the json to lucene index.
      * @param indexWriter the index writer used to delete the index.
+     * @param sourceTerm  the term of the source the json object was loaded from or null.
      * @throws ParseException when the json can't be used to create a query to identify the correct lucene index.
      * @throws IOException    when other error happens during the deletion process.
      */
-    private void updateObject(final Object jsonObject, final Resource resource, final IndexWriter indexWriter)
-            throws ParseException, IOException {
-        // search for the same object, if they exists, delete them :)
-        deleteObject(jsonObject, resource, indexWriter);
-        // write the new object
-        writeObject(jsonObject, resource, indexWriter);
+    private void updateObject(final Object jsonObject, final Resource resource, final IndexWriter indexWriter,
+                              final Term sourceTerm) throws ParseException, IOException {
+        JsonFieldExtractor extractor = getFieldExtractor(resource);
+        Object[] values = extractor.extract(jsonObject);
+        Term keyTerm = createKeyTerm(extractor, values, resource);
+        if (keyTerm != null && !isKeyless(resource)) {
+            indexWriter.updateDocument(keyTerm,
+                    createDocument(jsonObject, extractor, values, resource, keyTerm, sourceTerm));
+            return;
+        }
+
+        // the delete and write must be performed as a single unit, otherwise concurrent update on the same object
+        // will leave duplicate documents in the index.
+        writeLock.lock();
+        try {
+            // search for the same object, if they exists, delete them :)
+            deleteObject(jsonObject, resource, indexWriter);
+            // write the new object
+            writeObject(jsonObject, resource, indexWriter, sourceTerm);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     @Override
     public void loadObjects(final Resource resource, final InputStream inputStream)
             throws ParseException, IOException {
-        InputStreamReader reader = new InputStreamReader(inputStream);
-        loadObjects(resource, reader);
+        loadObjects(resource, inputStream, null);
     }
 
     @Override
     public void loadObjects(final Resource resource, final Reader reader)
             throws ParseException, IOException {
+        loadObjects(resource, reader, null);
+    }
+
+    @Override
+    public void loadObjects(final Resource resource, final InputStream inputStream, final String source)
+            throws ParseException, IOException {
+        InputStreamReader reader = new InputStreamReader(inputStream);
+        loadObjects(resource, reader, source);
+    }
+
+    /**
+     * Load the json payload from the reader into the lucene index. When the resource's root node is a simple JsonPath
+     * expression, the payload will be streamed and each element of the root node will be indexed as soon as it's read,
+     * so the whole payload never need to be held in memory. Otherwise, the whole payload will be read and evaluated
+     * using the root node expression.
+     * <p/>
+     * When the source is not null, all documents previously loaded from the same source using the resource will be
+     * removed before the payload is loaded. When the payload can't be read completely, the documents already indexed
+     * from the source are removed again, so the next commit will not publish a partial batch of the source. Elements
+     * loaded without a source are indexed as they are read, and loading the payload again will replace them.
+     *
+     * @param resource the resource definition used to register the json to lucene index.
+     * @param reader   the reader to the json payload.
+     * @param source   the name of the source of the payload (e.g. the file path) or null.
+     * @throws ParseException when the json can't be used to create a query to identify the correct lucene index.
+     * @throws IOException    when other error happens during the loading process.
+     */
+    @Override
+    public void loadObjects(final Resource resource, final Reader reader, final String source)
+            throws ParseException, IOException {
+        Term sourceTerm = createSourceTerm(resource, source);
+        if (sourceTerm != null)
+            getIndexWriter().deleteDocuments(sourceTerm);
+
+        boolean loaded = false;
+        try {
+            if (JsonStreamReader.isStreamable(resource.getRootNode()))
+                streamObjects(resource, reader, sourceTerm);
+            else
+                readObjects(resource, reader, sourceTerm);
+            loaded = true;
+        } finally {
+            if (!loaded && sourceTerm != null)
+                getIndexWriter().deleteDocuments(sourceTerm);
+        }
+    }
+
+    /**
+     * Remove all documents loaded from the source using the resource. Objects loaded without a source are not tracked
+     * by their source, so nothing is removed when the source is null.
+     *
+     * @param resource the resource definition used to register the json to lucene index.
+     * @param source   the name of the source of the documents (e.g. the file path) or null.
+     * @throws IOException when the deletion encounter error.
+     */
+    @Override
+    public void deleteObjects(final Resource resource, final String source) throws IOException {
+        Term sourceTerm = createSourceTerm(resource, source);
+        if (sourceTerm != null)
+            getIndexWriter().deleteDocuments(sourceTerm);
+    }
+
+    private void streamObjects(final Resource resource, final Reader reader, final Term sourceTerm)
+            throws ParseException, IOException {
+        JsonStreamReader streamReader = new JsonStreamReader(reader);
+        if (streamReader.seek(resource.getRootNode())) {
+            String element;
+            while ((element = streamReader.next()) != null) {
+                Object jsonObject = ROOT_PATH.read(element);
+                if (streamReader.isArray() || jsonObject instanceof JSONObject)
+                    updateObject(jsonObject, resource, getIndexWriter(), sourceTerm);
+            }
+        }
+    }
+
+    private void readObjects(final Resource resource, final Reader reader, final Term sourceTerm)
+            throws ParseException, IOException {
         String json = StreamUtil.readAsString(reader);
-        Object jsonObject = JsonPath.read(json, resource.getRootNode());
+        Object jsonObject = getRootPath(resource).read(json);
         if (jsonObject instanceof JSONArray) {
             JSONArray array = (JSONArray) jsonObject;
             for (Object element : array)
-                updateObject(element, resource, getIndexWriter());
+                updateObject(element, resource, getIndexWriter(), sourceTerm);
         } else if (jsonObject instanceof JSONObject) {
-            updateObject(jsonObject, resource, getIndexWriter());
+            updateObject(jsonObject, resource, getIndexWriter(), sourceTerm);
         }
     }
 
     @Override
     public <T> T getObject(final String key, final Class<T> clazz) throws ParseException, IOException {
         T object = null;
+        // two documents are enough to find out whether the key can uniquely identify an object.
+        List<Document> documents = findDocuments(createQuery(key, clazz), 0, 2, OBJECT_FIELDS);
 
-        String queryString = createClassQuery(clazz);
-        if (!StringUtil.isEmpty(key))
-            queryString = queryString + " AND " + key;
+        if (!CollectionUtil.isEmpty(documents) && documents.size() > 1)
+            throw new IOException("Unable to uniquely identify an object using key: '" + key + "'in the repository.");
 
-        if (getLogger().isDebugEnabled())
-            getLogger().debug(this.getClass().getSimpleName(), "Query getObject(String, Class): " + queryString);
+        for (Document document : documents)
+            object = clazz.cast(deserialize(document, null));
 
-        Query query = parser.parse(queryString);
-        List<Document> documents = findDocuments(query);
+        return object;
+    }
+
+    @Override
+    public Object getObject(final String key, final Resource resource) throws ParseException, IOException {
+        Object object = null;
+        // two documents are enough to find out whether the key can uniquely identify an object.
+        List<Document> documents = findDocuments(createQuery(key, resource), 0, 2, OBJECT_FIELDS);
 
         if (!CollectionUtil.isEmpty(documents) && documents.size() > 1)
             throw new IOException("Unable to uniquely identify an object using key: '" + key + "'in the repository.");
 
-        for (Document document : documents) {
-            String resourceName = document.get(DEFAULT_FIELD_RESOURCE);
-            Resource resource = getResourceRegistry().getEntryValue(resourceName);
-            Algorithm algorithm = resource.getAlgorithm();
-            String json = document.get(DEFAULT_FIELD_JSON);
-            object = clazz.cast(algorithm.deserialize(json));
-        }
+        for (Document document : documents)
+            object = deserialize(document, resource);
 
         return object;
     }
 
     @Override
-    public Object getObject(final String key, final Resource resource) throws ParseException, IOException {
-        Object object = null;
+    public <T> T getObject(final Query query, final Class<T> clazz) throws IOException {
+        T object = null;
+        // two documents are enough to find out whether the query can uniquely identify an object.
+        List<Document> documents = findDocuments(createQuery(query, clazz), 0, 2, OBJECT_FIELDS);
 
-        String queryString = createResourceQuery(resource);
-        if (!StringUtil.isEmpty(key))
-            queryString = queryString + " AND " + key;
+        if (!CollectionUtil.isEmpty(documents) && documents.size() > 1)
+            throw new IOException("Unable to uniquely identify an object using query: '" + query
+                    + "' in the repository.");
 
-        if (getLogger().isDebugEnabled())
-            getLogger().debug(this.getClass().getSimpleName(), "Query getObject(String,  Resource): " + queryString);
+        for (Document document : documents)
+            object = clazz.cast(deserialize(document, null));
+
+        return object;
+    }
 
-        Query query = parser.parse(queryString);
-        List<Document> documents = findDocuments(query);
+    @Override
+    public Object getObject(final Query query, final Resource resource) throws IOException {
+        Object object = null;
+        // two documents are enough to find out whether the query can uniquely identify an object.
+        List<Document> documents = findDocuments(createQuery(query, resource), 0, 2, OBJECT_FIELDS);
 
         if (!CollectionUtil.isEmpty(documents) && documents.size() > 1)
-            throw new IOException("Unable to uniquely identify an object using key: '" + key + "'in the repository.");
+            throw new IOException("Unable to uniquely identify an object using query: '" + query
+                    + "' in the repository.");
 
-        Algorithm algorithm = resource.getAlgorithm();
-        for (Document document : documents) {
-            String json = document.get(DEFAULT_FIELD_JSON);
-            object = algorithm.deserialize(json);
+        for (Document document : documents)
+            object = deserialize(document, resource);
+
+        return object;
+    }
+
+    /**
+     * Get an object by the value of the unique searchable field of its resource. The key is lower cased the same way
+     * as the unique values are when they're indexed, so the key is matched regardless of its case.
+     *
+     * @param key   the value of the unique searchable field of the object.
+     * @param clazz the expected return type of the object.
+     * @return object with matching key and clazz or null.
+     * @throws IOException when the key matches more than one object or the search encounter error.
+     */
+    @Override
+    public <T> T getObjectByKey(final String key, final Class<T> clazz) throws IOException {
+        List<Resource> resources = new ArrayList<Resource>();
+        for (Resource resource : getResourceRegistry().getEntries().values()) {
+            if (clazz.equals(resource.getResourceObject()))
+                resources.add(resource);
         }
 
+        T object = null;
+        List<Document> documents = findKeyDocuments(key, resources);
+        if (documents.size() > 1)
+            throw new IOException("Unable to uniquely identify an object using key: '" + key + "' in the repository.");
+
+        for (Document document : documents)
+            object = clazz.cast(deserialize(document, null));
+
+        return object;
+    }
+
+    /**
+     * Get an object of the resource by the value of the unique searchable field of the resource. The key is matched
+     * regardless of its case, like in <code>getObjectByKey(String, Class)</code>.
+     *
+     * @param key      the value of the unique searchable field of the object.
+     * @param resource the resource descriptor used to register the object.
+     * @return object with matching key or null.
+     * @throws IOException when the key matches more than one object or the search encounter error.
+     */
+    @Override
+    public Object getObjectByKey(final String key, final Resource resource) throws IOException {
+        Object object = null;
+        List<Document> documents = findKeyDocuments(key, Arrays.asList(resource));
+        if (documents.size() > 1)
+            throw new IOException("Unable to uniquely identify an object using key: '" + key + "' in the repository.");
+
+        for (Document document : documents)
+            object = deserialize(document, resource);
+
         return object;
     }
 
     @Override
     public <T> List<T> getObjects(final String searchString, final Class<T> clazz)
             throws ParseException, IOException {
-        List<T> objects = new ArrayList<T>();
+        return getObjects(searchString, clazz, 0, ALL_DOCUMENTS);
+    }
 
-        String queryString = createClassQuery(clazz);
-        if (!StringUtil.isEmpty(searchString))
-            queryString = queryString + " AND " + searchString;
+    @Override
+    public List<Object> getObjects(final String searchString, final Resource resource)
+            throws ParseException, IOException {
+        return getObjects(searchString, resource, 0, ALL_DOCUMENTS);
+    }
 
-        if (getLogger().isDebugEnabled())
-            getLogger().debug(this.getClass().getSimpleName(), "Query getObjects(String, Class): " + queryString);
+    @Override
+    public <T> List<T> getObjects(final String searchString, final Class<T> clazz, final int offset, final int limit)
+            throws ParseException, IOException {
+        return getObjects(parseQuery(searchString), clazz, offset, limit);
+    }
 
-        Query query = parser.parse(queryString);
-        List<Document> documents = findDocuments(query);
-        for (Document document : documents) {
-            String resourceName = document.get(DEFAULT_FIELD_RESOURCE);
-            Resource resource = getResourceRegistry().getEntryValue(resourceName);
-            Algorithm algorithm = resource.getAlgorithm();
-            String json = document.get(DEFAULT_FIELD_JSON);
-            objects.add(clazz.cast(algorithm.deserialize(json)));
-        }
+    @Override
+    public List<Object> getObjects(final String searchString, final Resource resource, final int offset,
+                                   final int limit) throws ParseException, IOException {
+        return getObjects(parseQuery(searchString), resource, offset, limit);
+    }
+
+    @Override
+    public <T> List<T> getObjects(final Query query, final Class<T> clazz) throws IOException {
+        return getObjects(query, clazz, 0, ALL_DOCUMENTS);
+    }
+
+    @Override
+    public List<Object> getObjects(final Query query, final Resource resource) throws IOException {
+        return getObjects(query, resource, 0, ALL_DOCUMENTS);
+    }
+
+    @Override
+    public <T> List<T> getObjects(final Query query, final Class<T> clazz, final int offset, final int limit)
+            throws IOException {
+        List<T> objects = new ArrayList<T>();
+        List<Document> documents = findDocuments(createQuery(query, clazz), offset, limit, OBJECT_FIELDS);
+        for (Document document : documents)
+            objects.add(clazz.cast(deserialize(document, null)));
         return objects;
     }
 
     @Override
-    public List<Object> getObjects(final String searchString, final Resource resource)
-            throws ParseException, IOException {
+    public List<Object> getObjects(final Query query, final Resource resource, final int offset, final int limit)
+            throws IOException {
         List<Object> objects = new ArrayList<Object>();
+        List<Document> documents = findDocuments(createQuery(query, resource), offset, limit, OBJECT_FIELDS);
+        for (Document document : documents)
+            objects.add(deserialize(document, resource));
+        return objects;
+    }
 
-        String queryString = createResourceQuery(resource);
-        if (!StringUtil.isEmpty(searchString))
-            queryString = queryString + " AND " + searchString;
+    @Override
+    public List<Map<String, String>> getFieldValues(final String searchString, final Class<?> clazz,
+                                                    final List<String> fields, final int offset, final int limit)
+            throws ParseException, IOException {
+        FieldSelector selector = new MapFieldSelector(fields);
+        return toFieldValues(findDocuments(createQuery(searchString, clazz), offset, limit, selector), fields);
+    }
 
-        if (getLogger().isDebugEnabled())
-            getLogger().debug(this.getClass().getSimpleName(), "Query getObjects(String, Resource): " + queryString);
+    @Override
+    public List<Map<String, String>> getFieldValues(final String searchString, final Resource resource,
+                                                    final List<String> fields, final int offset, final int limit)
+            throws ParseException, IOException {
+        FieldSelector selector = new MapFieldSelector(fields);
+        return toFieldValues(findDocuments(createQuery(searchString, resource), offset, limit, selector), fields);
+    }
 
-        Query query = parser.parse(queryString);
-        List<Document> documents = findDocuments(query);
-        Algorithm algorithm = resource.getAlgorithm();
+    /**
+     * Read the stored values of the fields from each document.
+     *
+     * @param documents the lucene documents.
+     * @param fields    the name of the fields.
+     * @return the values of the fields for each document, keyed by the name of the field.
+     */
+    private List<Map<String, String>> toFieldValues(final List<Document> documents, final List<String> fields) {
+        List<Map<String, String>> fieldValues = new ArrayList<Map<String, String>>();
         for (Document document : documents) {
-            String json = document.get(DEFAULT_FIELD_JSON);
-            objects.add(algorithm.deserialize(json));
+            Map<String, String> values = new LinkedHashMap<String, String>();
+            for (String field : fields)
+                values.put(field, document.get(field));
+            fieldValues.add(values);
         }
-        return objects;
+        return fieldValues;
+    }
+
+    @Override
+    public <T> Page<T> getPage(final String searchString, final Class<T> clazz, final ScoreDoc cursor,
+                               final int limit) throws ParseException, IOException {
+        return findPage(createQuery(searchString, clazz), cursor, limit, clazz, null);
+    }
+
+    @Override
+    public Page<Object> getPage(final String searchString, final Resource resource, final ScoreDoc cursor,
+                                final int limit) throws ParseException, IOException {
+        return findPage(createQuery(searchString, resource), cursor, limit, Object.class, resource);
+    }
+
+    @Override
+    public <T> ResultIterator<T> iterateObjects(final String searchString, final Class<T> clazz)
+            throws ParseException, IOException {
+        return iterateDocuments(createQuery(searchString, clazz), clazz, null);
+    }
+
+    @Override
+    public ResultIterator<Object> iterateObjects(final String searchString, final Resource resource)
+            throws ParseException, IOException {
+        return iterateDocuments(createQuery(searchString, resource), Object.class, resource);
+    }
+
+    @Override
+    public <T> ResultList<T> getResultList(final String searchString, final Class<T> clazz)
+            throws ParseException, IOException {
+        return findResultList(createQuery(searchString, clazz), clazz, null);
+    }
+
+    @Override
+    public ResultList<Object> getResultList(final String searchString, final Resource resource)
+            throws ParseException, IOException {
+        return findResultList(createQuery(searchString, resource), Object.class, resource);
     }
 
     @Override
     public Object createObject(final Object object, final Resource resource) throws ParseException, IOException {
         String jsonString = resource.serialize(object);
-        Object jsonObject = JsonPath.read(jsonString, "$");
-        writeObject(jsonObject, resource, getIndexWriter());
-        commit();
+        Object jsonObject = ROOT_PATH.read(jsonString);
+        writeObject(jsonObject, resource, getIndexWriter(), null);
+        commitChanges();
         return object;
     }
 
     @Override
     public Object deleteObject(final Object object, final Resource resource) throws ParseException, IOException {
         String jsonString = resource.serialize(object);
-        Object jsonObject = JsonPath.read(jsonString, "$");
+        Object jsonObject = ROOT_PATH.read(jsonString);
         deleteObject(jsonObject, resource, getIndexWriter());
-        commit();
+        commitChanges();
         return object;
     }
 
     @Override
     public Object updateObject(final Object object, final Resource resource) throws ParseException, IOException {
         String jsonString = resource.serialize(object);
-        Object jsonObject = JsonPath.read(jsonString, "$");
-        updateObject(jsonObject, resource, getIndexWriter());
-        commit();
+        Object jsonObject = ROOT_PATH.read(jsonString);
+        updateObject(jsonObject, resource, getIndexWriter(), null);
+        commitChanges();
         return object;
     }
+
+    /**
+     * Collector of every hit of a query. The hits are grown as they are collected instead of being kept in a priority
+     * queue sized up front, and they are sorted by their score the same way as the top docs of a search.
+     */
+    private static class AllHitsCollector extends Collector {
+
+        private final List<ScoreDoc> hits = new ArrayList<ScoreDoc>();
+
+        private Scorer scorer;
+
+        private int docBase;
+
+        @Override
+        public void setScorer(final Scorer scorer) throws IOException {
+            this.scorer = scorer;
+        }
+
+        @Override
+        public void collect(final int doc) throws IOException {
+            hits.add(new ScoreDoc(docBase + doc, scorer.score()));
+        }
+
+        @Override
+        public void setNextReader(final IndexReader reader, final int docBase) throws IOException {
+            this.docBase = docBase;
+        }
+
+        @Override
+        public boolean acceptsDocsOutOfOrder() {
+            return true;
+        }
+
+        private ScoreDoc[] getHits() {
+            ScoreDoc[] sortedHits = hits.toArray(new ScoreDoc[hits.size()]);
+            Arrays.sort(sortedHits, new Comparator<ScoreDoc>() {
+                @Override
+                public int compare(final ScoreDoc hit, final ScoreDoc other) {
+                    int result = Float.compare(other.score, hit.score);
+                    return result != 0 ? result : (hit.doc < other.doc ? -1 : (hit.doc == other.doc ? 0 : 1));
+                }
+            });
+            return sortedHits;
+        }
+    }
+
+    /**
+     * Key of a cached query result. The cached hits are only valid for the reader version they were searched on, the
+     * version is tracked by the cache itself.
+     */
+    private static class QueryKey {
+
+        private final Query query;
+
+        private final int offset;
+
+        private final int limit;
+
+        private QueryKey(final Query query, final int offset, final int limit) {
+            this.query = query;
+            this.offset = offset;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof QueryKey)) return false;
+
+            final QueryKey queryKey = (QueryKey) o;
+
+            return offset == queryKey.offset && limit == queryKey.limit && query.equals(queryKey.query);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = query.hashCode();
+            result = 31 * result + offset;
+            result = 31 * result + limit;
+            return result;
+        }
+    }
 }
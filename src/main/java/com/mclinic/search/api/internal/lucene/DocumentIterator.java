@@ -0,0 +1,133 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.lucene;
+
+import com.mclinic.search.api.exception.SearchException;
+import com.mclinic.search.api.result.ResultIterator;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.FieldSelector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator to walk all hits of a query. The iterator will hold a single searcher until it's closed, so the hits will
+ * be consistent even when the index is changed during the iteration. Hits are fetched in batches using the last hit of
+ * the previous batch as the cursor, and each document is only loaded when it's returned. Only the stored fields chosen
+ * by the field selector are loaded.
+ *
+ * @param <T> the type of the objects returned by the iterator.
+ */
+abstract class DocumentIterator<T> implements ResultIterator<T> {
+
+    private final SearcherManager searcherManager;
+
+    private final Query query;
+
+    private final int batchSize;
+
+    private final FieldSelector selector;
+
+    private IndexSearcher searcher;
+
+    private ScoreDoc[] hits;
+
+    private int position;
+
+    private ScoreDoc cursor;
+
+    private boolean exhausted;
+
+    DocumentIterator(final SearcherManager searcherManager, final Query query, final int batchSize,
+                     final FieldSelector selector) {
+        this.searcherManager = searcherManager;
+        this.query = query;
+        this.batchSize = batchSize;
+        this.selector = selector;
+        this.searcher = searcherManager.acquire();
+        this.hits = new ScoreDoc[0];
+    }
+
+    /**
+     * Convert the document of a single hit into the object returned by the iterator.
+     *
+     * @param document the lucene document.
+     * @return the object representation of the document.
+     */
+    protected abstract T toObject(final Document document);
+
+    private void fetch() throws IOException {
+        TopDocs docs = searcher.searchAfter(cursor, query, batchSize);
+        hits = docs.scoreDocs;
+        position = 0;
+        if (hits.length < batchSize)
+            exhausted = true;
+        if (hits.length > 0)
+            cursor = hits[hits.length - 1];
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (searcher == null)
+            return false;
+        if (position < hits.length)
+            return true;
+
+        try {
+            if (!exhausted)
+                fetch();
+            if (position < hits.length)
+                return true;
+            close();
+        } catch (IOException e) {
+            throw new SearchException("Unable to read the next hits from the repository.", e);
+        }
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        ScoreDoc hit = hits[position++];
+        try {
+            return toObject(searcher.doc(hit.doc, selector));
+        } catch (IOException e) {
+            throw new SearchException("Unable to read document for hit: '" + hit.doc + "' from the repository.", e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Removing object through the iterator is not supported.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (searcher != null) {
+            try {
+                searcherManager.release(searcher);
+            } finally {
+                searcher = null;
+                hits = new ScoreDoc[0];
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.lucene;
+
+import com.mclinic.search.api.exception.SearchException;
+import com.mclinic.search.api.result.ResultList;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.FieldSelector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * List view over the hits of a query. The list will hold a single searcher until it's closed, so the document ids of
+ * the hits stay valid even when the index is changed. Each document is only loaded and converted when the element is
+ * accessed, and the most recently accessed objects are cached.
+ *
+ * @param <T> the type of the objects in the list.
+ */
+abstract class DocumentList<T> extends AbstractList<T> implements ResultList<T> {
+
+    private final SearcherManager searcherManager;
+
+    private final int[] docs;
+
+    private final float[] scores;
+
+    private final Map<Integer, T> objects;
+
+    private final FieldSelector selector;
+
+    private IndexSearcher searcher;
+
+    DocumentList(final SearcherManager searcherManager, final IndexSearcher searcher, final ScoreDoc[] hits,
+                 final int cacheSize, final FieldSelector selector) {
+        this.searcherManager = searcherManager;
+        this.searcher = searcher;
+        this.selector = selector;
+        this.docs = new int[hits.length];
+        this.scores = new float[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            docs[i] = hits[i].doc;
+            scores[i] = hits[i].score;
+        }
+        // access ordered map, the least recently accessed object will be evicted when the cache is full.
+        this.objects = new LinkedHashMap<Integer, T>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, T> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Convert the document of a single hit into the object in the list.
+     *
+     * @param document the lucene document.
+     * @return the object representation of the document.
+     */
+    protected abstract T toObject(final Document document);
+
+    @Override
+    public synchronized T get(final int index) {
+        if (index < 0 || index >= docs.length)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + docs.length);
+        if (searcher == null)
+            throw new IllegalStateException("Unable to read object from a closed result list.");
+
+        T object = objects.get(index);
+        if (object == null) {
+            try {
+                object = toObject(searcher.doc(docs[index], selector));
+            } catch (IOException e) {
+                throw new SearchException("Unable to read document for hit: '" + docs[index] + "' from the repository.",
+                        e);
+            }
+            objects.put(index, object);
+        }
+        return object;
+    }
+
+    @Override
+    public float getScore(final int index) {
+        return scores[index];
+    }
+
+    @Override
+    public int size() {
+        return docs.length;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (searcher != null) {
+            try {
+                searcherManager.release(searcher);
+            } finally {
+                searcher = null;
+                objects.clear();
+            }
+        }
+    }
+}
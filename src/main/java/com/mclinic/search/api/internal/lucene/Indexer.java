@@ -14,12 +14,18 @@
 package com.mclinic.search.api.internal.lucene;
 
 import com.mclinic.search.api.resource.Resource;
+import com.mclinic.search.api.result.Page;
+import com.mclinic.search.api.result.ResultIterator;
+import com.mclinic.search.api.result.ResultList;
 import org.apache.lucene.queryParser.ParseException;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.util.List;
+import java.util.Map;
 
 public interface Indexer {
 
@@ -27,6 +33,14 @@ public interface Indexer {
 
     void loadObjects(final Resource resource, final Reader reader) throws ParseException, IOException;
 
+    void loadObjects(final Resource resource, final InputStream inputStream, final String source)
+            throws ParseException, IOException;
+
+    void loadObjects(final Resource resource, final Reader reader, final String source)
+            throws ParseException, IOException;
+
+    void deleteObjects(final Resource resource, final String source) throws IOException;
+
     <T> T getObject(final String key, final Class<T> clazz) throws ParseException, IOException;
 
     Object getObject(final String key, final Resource resource) throws ParseException, IOException;
@@ -35,6 +49,56 @@ public interface Indexer {
 
     List<Object> getObjects(final String searchString, final Resource resource) throws ParseException, IOException;
 
+    <T> List<T> getObjects(final String searchString, final Class<T> clazz, final int offset, final int limit)
+            throws ParseException, IOException;
+
+    List<Object> getObjects(final String searchString, final Resource resource, final int offset, final int limit)
+            throws ParseException, IOException;
+
+    <T> T getObject(final Query query, final Class<T> clazz) throws IOException;
+
+    Object getObject(final Query query, final Resource resource) throws IOException;
+
+    <T> T getObjectByKey(final String key, final Class<T> clazz) throws IOException;
+
+    Object getObjectByKey(final String key, final Resource resource) throws IOException;
+
+    <T> List<T> getObjects(final Query query, final Class<T> clazz) throws IOException;
+
+    List<Object> getObjects(final Query query, final Resource resource) throws IOException;
+
+    <T> List<T> getObjects(final Query query, final Class<T> clazz, final int offset, final int limit)
+            throws IOException;
+
+    List<Object> getObjects(final Query query, final Resource resource, final int offset, final int limit)
+            throws IOException;
+
+    List<Map<String, String>> getFieldValues(final String searchString, final Class<?> clazz,
+                                             final List<String> fields, final int offset, final int limit)
+            throws ParseException, IOException;
+
+    List<Map<String, String>> getFieldValues(final String searchString, final Resource resource,
+                                             final List<String> fields, final int offset, final int limit)
+            throws ParseException, IOException;
+
+    <T> Page<T> getPage(final String searchString, final Class<T> clazz, final ScoreDoc cursor, final int limit)
+            throws ParseException, IOException;
+
+    Page<Object> getPage(final String searchString, final Resource resource, final ScoreDoc cursor, final int limit)
+            throws ParseException, IOException;
+
+    <T> ResultIterator<T> iterateObjects(final String searchString, final Class<T> clazz)
+            throws ParseException, IOException;
+
+    ResultIterator<Object> iterateObjects(final String searchString, final Resource resource)
+            throws ParseException, IOException;
+
+    <T> ResultList<T> getResultList(final String searchString, final Class<T> clazz)
+            throws ParseException, IOException;
+
+    ResultList<Object> getResultList(final String searchString, final Resource resource)
+            throws ParseException, IOException;
+
     Object createObject(final Object object, final Resource resource) throws ParseException, IOException;
 
     Object deleteObject(final Object object, final Resource resource) throws ParseException, IOException;
@@ -42,4 +106,12 @@ public interface Indexer {
     Object updateObject(final Object object, final Resource resource) throws ParseException, IOException;
 
     void commit() throws IOException;
+
+    void awaitCommit() throws IOException;
+
+    long getQueryCacheHits();
+
+    long getQueryCacheMisses();
+
+    void close() throws IOException;
 }
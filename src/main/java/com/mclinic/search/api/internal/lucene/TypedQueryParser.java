@@ -0,0 +1,71 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.lucene;
+
+import com.mclinic.search.api.query.QueryBuilder;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.queryParser.ParseException;
+import org.apache.lucene.queryParser.QueryParser;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Version;
+
+/**
+ * Query parser which knows the type of the searchable fields of the registered resources. Term and range queries on
+ * numeric and date fields are converted into numeric range queries on the trie encoded values, every other query is
+ * parsed the same way as the default query parser.
+ */
+class TypedQueryParser extends QueryParser {
+
+    private static final String OPEN_BOUND = "*";
+
+    private final QueryBuilder queryBuilder;
+
+    TypedQueryParser(final Version version, final String defaultField, final Analyzer analyzer,
+                     final QueryBuilder queryBuilder) {
+        super(version, defaultField, analyzer);
+        this.queryBuilder = queryBuilder;
+    }
+
+    private String toBound(final String value) {
+        if (OPEN_BOUND.equals(value))
+            return null;
+        return value;
+    }
+
+    @Override
+    protected Query getFieldQuery(final String field, final String queryText, final boolean quoted)
+            throws ParseException {
+        if (!queryBuilder.getFieldType(field).isNumeric())
+            return super.getFieldQuery(field, queryText, quoted);
+
+        try {
+            return queryBuilder.term(field, queryText);
+        } catch (IllegalArgumentException e) {
+            throw new ParseException("Invalid value for field '" + field + "': '" + queryText + "'.");
+        }
+    }
+
+    @Override
+    protected Query getRangeQuery(final String field, final String part1, final String part2,
+                                  final boolean inclusive) throws ParseException {
+        if (!queryBuilder.getFieldType(field).isNumeric())
+            return super.getRangeQuery(field, part1, part2, inclusive);
+
+        try {
+            return queryBuilder.range(field, toBound(part1), toBound(part2), inclusive, inclusive);
+        } catch (IllegalArgumentException e) {
+            throw new ParseException("Invalid range for field '" + field + "': '" + part1 + "' TO '" + part2 + "'.");
+        }
+    }
+}
@@ -17,23 +17,103 @@ package com.mclinic.search.api.internal.provider;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.store.NRTCachingDirectory;
+import org.apache.lucene.store.RAMDirectory;
 
 import java.io.File;
 import java.io.IOException;
 
+/**
+ * Provider for the lucene directory. The type of the directory can be selected using the
+ * <code>configuration.lucene.directory.type</code> named binding:
+ * <pre>
+ * nio    : NIOFSDirectory on the configured path (default).
+ * mmap   : MMapDirectory on the configured path, best for read heavy usage on 64 bit platform.
+ * ram    : RAMDirectory, the index is kept in memory only and lost when the application stops.
+ * cached : NRTCachingDirectory over MMapDirectory, small newly flushed segments are kept in memory while large
+ *          segments are memory mapped.
+ * </pre>
+ * The same directory instance is returned on every call, so the in memory directory can be shared by the index writer
+ * and the index readers.
+ */
 public class DirectoryProvider implements SearchProvider<Directory> {
 
+    public static final String TYPE_NIO = "nio";
+
+    public static final String TYPE_MMAP = "mmap";
+
+    public static final String TYPE_RAM = "ram";
+
+    public static final String TYPE_CACHED = "cached";
+
+    private static final Double DEFAULT_MAX_MERGE_SIZE = 5.0;
+
+    private static final Double DEFAULT_MAX_CACHED_SIZE = 60.0;
+
     private final String directory;
 
-    // TODO: create a factory to customize the type of directory returned by this provider
+    private String type = TYPE_NIO;
+
+    private Double maxMergeSize = DEFAULT_MAX_MERGE_SIZE;
+
+    private Double maxCachedSize = DEFAULT_MAX_CACHED_SIZE;
+
+    private Directory instance;
+
     @Inject
     protected DirectoryProvider(final @Named("configuration.lucene.directory") String directory) {
         this.directory = directory;
     }
 
+    /**
+     * Set the type of the directory returned by this provider. Supported values are "nio", "mmap", "ram" and
+     * "cached".
+     *
+     * @param type the type of the directory.
+     */
+    @Inject(optional = true)
+    private void setType(final @Named("configuration.lucene.directory.type") String type) {
+        this.type = type;
+    }
+
+    /**
+     * Set the maximum size in MB of a merged segment that will be kept in memory by the "cached" directory.
+     *
+     * @param maxMergeSize the maximum size of a cached merged segment in MB.
+     */
+    @Inject(optional = true)
+    private void setMaxMergeSize(final @Named("configuration.lucene.directory.cache.merge") Double maxMergeSize) {
+        this.maxMergeSize = maxMergeSize;
+    }
+
+    /**
+     * Set the maximum total size in MB of the segments kept in memory by the "cached" directory.
+     *
+     * @param maxCachedSize the maximum size of all cached segments in MB.
+     */
+    @Inject(optional = true)
+    private void setMaxCachedSize(final @Named("configuration.lucene.directory.cache.size") Double maxCachedSize) {
+        this.maxCachedSize = maxCachedSize;
+    }
+
     @Override
-    public Directory get() throws IOException {
-        return NIOFSDirectory.open(new File(directory));
+    public synchronized Directory get() throws IOException {
+        if (instance == null)
+            instance = createDirectory();
+        return instance;
+    }
+
+    private Directory createDirectory() throws IOException {
+        if (TYPE_NIO.equalsIgnoreCase(type))
+            return NIOFSDirectory.open(new File(directory));
+        else if (TYPE_MMAP.equalsIgnoreCase(type))
+            return new MMapDirectory(new File(directory));
+        else if (TYPE_RAM.equalsIgnoreCase(type))
+            return new RAMDirectory();
+        else if (TYPE_CACHED.equalsIgnoreCase(type))
+            return new NRTCachingDirectory(new MMapDirectory(new File(directory)), maxMergeSize, maxCachedSize);
+        throw new IOException("Unsupported lucene directory type: '" + type + "'.");
     }
 }
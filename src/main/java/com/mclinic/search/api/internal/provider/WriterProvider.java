@@ -19,6 +19,7 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.NRTCachingDirectory;
 import org.apache.lucene.util.Version;
 
 import java.io.IOException;
@@ -43,6 +44,9 @@ public class WriterProvider implements SearchProvider<IndexWriter> {
     public IndexWriter get() throws IOException {
         Directory directory = directoryProvider.get();
         IndexWriterConfig config = new IndexWriterConfig(Version.LUCENE_36, analyzer);
+        // the caching directory need to see the merges to decide which merged segments can be kept in memory.
+        if (directory instanceof NRTCachingDirectory)
+            config.setMergeScheduler(((NRTCachingDirectory) directory).getMergeScheduler());
         return new IndexWriter(directory, config);
     }
 }
@@ -18,21 +18,20 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Singleton;
 import com.google.inject.throwingproviders.ThrowingProviderBinder;
 import com.mclinic.search.api.RestAssuredService;
+import com.mclinic.search.api.internal.http.ConnectionManager;
+import com.mclinic.search.api.internal.http.DefaultConnectionManager;
 import com.mclinic.search.api.internal.lucene.DefaultIndexer;
 import com.mclinic.search.api.internal.lucene.Indexer;
 import com.mclinic.search.api.internal.provider.AnalyzerProvider;
 import com.mclinic.search.api.internal.provider.DirectoryProvider;
-import com.mclinic.search.api.internal.provider.ReaderProvider;
 import com.mclinic.search.api.internal.provider.SearchProvider;
-import com.mclinic.search.api.internal.provider.SearcherProvider;
 import com.mclinic.search.api.internal.provider.WriterProvider;
 import com.mclinic.search.api.logger.ConsoleLogger;
 import com.mclinic.search.api.logger.Logger;
+import com.mclinic.search.api.query.QueryBuilder;
 import com.mclinic.search.api.service.RestAssuredServiceImpl;
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Version;
 
@@ -46,6 +45,8 @@ public class SearchModule extends AbstractModule {
         bind(RestAssuredService.class).to(RestAssuredServiceImpl.class).in(Singleton.class);
         bind(Indexer.class).to(DefaultIndexer.class).in(Singleton.class);
         bind(Logger.class).to(ConsoleLogger.class).in(Singleton.class);
+        bind(ConnectionManager.class).to(DefaultConnectionManager.class).in(Singleton.class);
+        bind(QueryBuilder.class).in(Singleton.class);
 
         bind(Version.class).toInstance(Version.LUCENE_36);
         bind(Analyzer.class).toProvider(AnalyzerProvider.class);
@@ -53,12 +54,6 @@ public class SearchModule extends AbstractModule {
                 .bind(SearchProvider.class, Directory.class)
                 .to(DirectoryProvider.class)
                 .in(Singleton.class);
-        ThrowingProviderBinder.create(binder())
-                .bind(SearchProvider.class, IndexReader.class)
-                .to(ReaderProvider.class);
-        ThrowingProviderBinder.create(binder())
-                .bind(SearchProvider.class, IndexSearcher.class)
-                .to(SearcherProvider.class);
         ThrowingProviderBinder.create(binder())
                 .bind(SearchProvider.class, IndexWriter.class)
                 .to(WriterProvider.class);
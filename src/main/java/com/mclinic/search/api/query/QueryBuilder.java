@@ -0,0 +1,249 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.query;
+
+import com.google.inject.Inject;
+import com.mclinic.search.api.exception.SearchException;
+import com.mclinic.search.api.registry.Registry;
+import com.mclinic.search.api.resource.FieldType;
+import com.mclinic.search.api.resource.Resource;
+import com.mclinic.search.api.resource.SearchableField;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Build lucene queries on the searchable fields without going through the query parser. The values are analyzed the
+ * same way they're analyzed when the objects are indexed, and numeric or date fields are searched using numeric range
+ * queries. The created queries are immutable as long as they're not modified by the caller, so they can be created
+ * once and reused across searches.
+ * <p/>
+ * Example: search all female patients between 18 and 65 years old whose name start with "ab".
+ * <pre>
+ * QueryBuilder builder = service.getQueryBuilder();
+ * Query query = builder.and(
+ *         builder.term("gender", "F"),
+ *         builder.range("age", 18, 65, true, true),
+ *         builder.prefix("name", "ab"));
+ * List&lt;Patient&gt; patients = service.getObjects(query, Patient.class);
+ * </pre>
+ */
+public class QueryBuilder {
+
+    private final Analyzer analyzer;
+
+    private final Registry<String, Resource> resourceRegistry;
+
+    private final ConcurrentMap<String, FieldType> fieldTypes;
+
+    @Inject
+    protected QueryBuilder(final Analyzer analyzer, final Registry<String, Resource> resourceRegistry) {
+        this.analyzer = analyzer;
+        this.resourceRegistry = resourceRegistry;
+        this.fieldTypes = new ConcurrentHashMap<String, FieldType>();
+    }
+
+    /**
+     * Get the type of a searchable field from the registered resources. Resources sharing a field name declare it with
+     * the same type, conflicting declarations are rejected when the resource is registered. The type of each field is
+     * resolved once and cached until the registered resources are changed.
+     *
+     * @param field the name of the field.
+     * @return the type of the field or string type when no resource declares the field.
+     */
+    public FieldType getFieldType(final String field) {
+        FieldType type = fieldTypes.get(field);
+        if (type == null) {
+            type = resolveFieldType(field);
+            fieldTypes.put(field, type);
+        }
+        return type;
+    }
+
+    private FieldType resolveFieldType(final String field) {
+        for (Resource resource : resourceRegistry.getEntries().values()) {
+            for (SearchableField searchableField : resource.getSearchableFields()) {
+                if (searchableField.getName().equals(field))
+                    return searchableField.getType();
+            }
+        }
+        return FieldType.STRING;
+    }
+
+    /**
+     * Drop the cached field types. This method must be called whenever a resource is registered or removed, so the
+     * next query will see the field types of the changed resources.
+     */
+    public void clearFieldTypes() {
+        fieldTypes.clear();
+    }
+
+    /**
+     * Create query to search the value in the field. String value is analyzed, the query will match a phrase when the
+     * value is analyzed into more than one term. Value of a numeric or date field is matched exactly.
+     *
+     * @param field the name of the field.
+     * @param value the value to search.
+     * @return the query matching the value in the field.
+     * @throws IllegalArgumentException when the value can't be converted to the type of a numeric field.
+     */
+    public Query term(final String field, final Object value) {
+        FieldType type = getFieldType(field);
+        if (type.isNumeric())
+            return createNumericQuery(type, field, value, value, true, true);
+        return phrase(field, String.valueOf(value), 0);
+    }
+
+    /**
+     * Create query to search a phrase in the field. The terms of the phrase can be at most <code>slop</code>
+     * positions away from their position in the phrase.
+     *
+     * @param field  the name of the field.
+     * @param phrase the phrase to search.
+     * @param slop   the number of positions the terms can be moved.
+     * @return the query matching the phrase in the field.
+     */
+    public Query phrase(final String field, final String phrase, final int slop) {
+        PhraseQuery query = new PhraseQuery();
+        query.setSlop(slop);
+        Term term = null;
+        try {
+            TokenStream stream = analyzer.reusableTokenStream(field, new StringReader(phrase));
+            CharTermAttribute termAttribute = stream.addAttribute(CharTermAttribute.class);
+            PositionIncrementAttribute positionAttribute = stream.addAttribute(PositionIncrementAttribute.class);
+            stream.reset();
+            int position = -1;
+            while (stream.incrementToken()) {
+                position += positionAttribute.getPositionIncrement();
+                term = new Term(field, termAttribute.toString());
+                query.add(term, position);
+            }
+            stream.end();
+            stream.close();
+        } catch (IOException e) {
+            throw new SearchException("Unable to analyze value: '" + phrase + "' of field: '" + field + "'.", e);
+        }
+
+        // single term phrase is the same as a term query, but a term query is cheaper to execute.
+        if (query.getTerms().length == 1)
+            return new TermQuery(term);
+        return query;
+    }
+
+    /**
+     * Create query to search values starting with the prefix in the field. The prefix is not analyzed, but it's
+     * lower cased the same way as the query parser does for prefix queries.
+     *
+     * @param field  the name of the field.
+     * @param prefix the prefix of the values.
+     * @return the query matching the values starting with the prefix.
+     */
+    public Query prefix(final String field, final String prefix) {
+        return new PrefixQuery(new Term(field, prefix.toLowerCase()));
+    }
+
+    /**
+     * Create query to search values between the lower and the upper bound in the field. Numeric or date field will
+     * be searched using a numeric range query, and the bounds of other fields are compared as lower cased text.
+     *
+     * @param field        the name of the field.
+     * @param lower        the lower bound or null for open lower bound.
+     * @param upper        the upper bound or null for open upper bound.
+     * @param includeLower flag whether the lower bound is included in the range.
+     * @param includeUpper flag whether the upper bound is included in the range.
+     * @return the query matching the values inside the range.
+     * @throws IllegalArgumentException when the bounds can't be converted to the type of a numeric field.
+     */
+    public Query range(final String field, final Object lower, final Object upper, final boolean includeLower,
+                       final boolean includeUpper) {
+        FieldType type = getFieldType(field);
+        if (type.isNumeric())
+            return createNumericQuery(type, field, lower, upper, includeLower, includeUpper);
+        return new TermRangeQuery(field, lower == null ? null : lower.toString().toLowerCase(),
+                upper == null ? null : upper.toString().toLowerCase(), includeLower, includeUpper);
+    }
+
+    /**
+     * Create query matching objects matched by all of the queries.
+     *
+     * @param queries the queries.
+     * @return the query matching objects matched by every query.
+     */
+    public Query and(final Query... queries) {
+        return combine(BooleanClause.Occur.MUST, queries);
+    }
+
+    /**
+     * Create query matching objects matched by any of the queries.
+     *
+     * @param queries the queries.
+     * @return the query matching objects matched by at least one of the queries.
+     */
+    public Query or(final Query... queries) {
+        return combine(BooleanClause.Occur.SHOULD, queries);
+    }
+
+    /**
+     * Create query matching objects not matched by the query.
+     *
+     * @param query the query.
+     * @return the query matching every object not matched by the query.
+     */
+    public Query not(final Query query) {
+        BooleanQuery booleanQuery = new BooleanQuery();
+        booleanQuery.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        booleanQuery.add(query, BooleanClause.Occur.MUST_NOT);
+        return booleanQuery;
+    }
+
+    private Query combine(final BooleanClause.Occur occur, final Query... queries) {
+        BooleanQuery booleanQuery = new BooleanQuery();
+        for (Query query : queries)
+            booleanQuery.add(query, occur);
+        return booleanQuery;
+    }
+
+    private Query createNumericQuery(final FieldType type, final String field, final Object lower, final Object upper,
+                                     final boolean includeLower, final boolean includeUpper) {
+        Number lowerNumber = lower == null ? null : type.toNumber(lower);
+        Number upperNumber = upper == null ? null : type.toNumber(upper);
+        switch (type) {
+            case INT:
+                return NumericRangeQuery.newIntRange(field, (Integer) lowerNumber, (Integer) upperNumber,
+                        includeLower, includeUpper);
+            case DOUBLE:
+                return NumericRangeQuery.newDoubleRange(field, (Double) lowerNumber, (Double) upperNumber,
+                        includeLower, includeUpper);
+            default:
+                return NumericRangeQuery.newLongRange(field, (Long) lowerNumber, (Long) upperNumber,
+                        includeLower, includeUpper);
+        }
+    }
+}
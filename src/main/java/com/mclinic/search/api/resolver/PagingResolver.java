@@ -0,0 +1,35 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+
+package com.mclinic.search.api.resolver;
+
+/**
+ * Resolver for REST resources which split their results into pages. Each page is expected to carry the link to the
+ * next page, e.g. the "next" link of the OpenMRS REST web services when the results are limited using
+ * <code>limit</code> and <code>startIndex</code>.
+ * <p/>
+ * Pages of a paged resource are always downloaded in full, because a page which is not modified doesn't carry the
+ * link to the next page.
+ */
+public interface PagingResolver extends Resolver {
+
+    /**
+     * Return the full REST resource of the page following the current page.
+     *
+     * @param uri     the full URI of the current page
+     * @param payload the json payload of the current page
+     * @return full URI to the next page or null when the current page is the last page
+     */
+    String resolveNext(final String uri, final String payload);
+}
@@ -0,0 +1,102 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.resource;
+
+import com.mclinic.search.api.util.ISO8601Util;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Type of the value of a searchable field. String fields are analyzed as text, while the numeric and date fields are
+ * indexed as trie encoded numbers so range searches on them (e.g. <code>age:[18 TO 65]</code>) don't need to scan
+ * every term of the field. Date fields are indexed as the number of milliseconds since the epoch.
+ */
+public enum FieldType {
+
+    STRING, INT, LONG, DOUBLE, DATE;
+
+    private static final String DATE_PATTERN = "yyyy-MM-dd";
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    /**
+     * Get the field type from its name in the resource configuration.
+     *
+     * @param name the name of the type, case insensitive.
+     * @return the matching field type.
+     * @throws IllegalArgumentException when the name doesn't match any field type.
+     */
+    public static FieldType fromName(final String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Check whether the field must be indexed as a trie encoded number.
+     *
+     * @return true if the field is not a string field.
+     */
+    public boolean isNumeric() {
+        return this != STRING;
+    }
+
+    /**
+     * Convert the value of the field to the number indexed for this type. Date can be a <code>java.util.Date</code>,
+     * ISO 8601 string, "yyyy-MM-dd" string or the number of milliseconds since the epoch. A "yyyy-MM-dd" string is
+     * read as midnight UTC, regardless of the default timezone of the JVM, so the same date is converted to the same
+     * number when the value is indexed and when it's searched.
+     *
+     * @param value the value read from the json object or the search string.
+     * @return the number to be indexed or searched for this type.
+     * @throws IllegalArgumentException when the value can't be converted to this type.
+     */
+    public Number toNumber(final Object value) {
+        switch (this) {
+            case INT:
+                return value instanceof Number ? ((Number) value).intValue() : Integer.valueOf(value.toString().trim());
+            case LONG:
+                return value instanceof Number ? ((Number) value).longValue() : Long.valueOf(value.toString().trim());
+            case DOUBLE:
+                return value instanceof Number ? ((Number) value).doubleValue()
+                        : Double.valueOf(value.toString().trim());
+            case DATE:
+                if (value instanceof Date)
+                    return ((Date) value).getTime();
+                return value instanceof Number ? ((Number) value).longValue() : parseDate(value.toString().trim());
+            default:
+                throw new IllegalArgumentException("Unable to convert value of a string field to a number.");
+        }
+    }
+
+    private static Long parseUtcDate(final String value) throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat(DATE_PATTERN);
+        format.setTimeZone(UTC);
+        return format.parse(value).getTime();
+    }
+
+    private static Long parseDate(final String value) {
+        try {
+            if (value.length() == DATE_PATTERN.length())
+                return parseUtcDate(value);
+            if (value.indexOf('-') < 0)
+                return Long.valueOf(value);
+            return ISO8601Util.toCalendar(value).getTimeInMillis();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Unable to parse date value: '" + value + "'.", e);
+        }
+    }
+}
@@ -18,6 +18,7 @@ import com.mclinic.search.api.resolver.Resolver;
 import com.mclinic.search.api.serialization.Algorithm;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ObjectResource implements Resource {
@@ -182,7 +183,22 @@ public class ObjectResource implements Resource {
      */
     @Override
     public void addFieldDefinition(final String name, final String expression, final Boolean unique) {
-        getSearchableFields().add(new SearchableField(name, expression, unique));
+        addFieldDefinition(name, expression, unique, FieldType.STRING);
+    }
+
+    /**
+     * Add a new searchable field with a typed value for the current resource object. Numeric and date fields are
+     * indexed as trie encoded numbers, so range queries on them (e.g. <code>age:[18 TO 65]</code>) are executed as
+     * numeric range queries instead of scanning the terms of the field.
+     *
+     * @param name       the name of the field
+     * @param expression the JsonPath expression to retrieve the value for the field
+     * @param unique     flag whether this field can uniquely identify an object for this resource
+     * @param type       the type of the value of the field
+     */
+    public void addFieldDefinition(final String name, final String expression, final Boolean unique,
+                                   final FieldType type) {
+        searchableFields.add(new SearchableField(name, expression, unique, type));
     }
 
     /**
@@ -191,13 +207,13 @@ public class ObjectResource implements Resource {
      * .org/">Lucene</a>
      * query.
      *
-     * @return the list of all searchable fields for this resource
+     * @return the unmodifiable list of all searchable fields for this resource
      * @see <a href="https://lucene.apache.org/core/old_versioned_docs/versions/3_0_0/queryparsersyntax.html">Query
      *      Syntax</a>
      */
     @Override
     public List<SearchableField> getSearchableFields() {
-        return searchableFields;
+        return Collections.unmodifiableList(searchableFields);
     }
 
     /**
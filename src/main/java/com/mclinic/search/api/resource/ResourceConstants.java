@@ -26,12 +26,15 @@ public class ResourceConstants {
 
     public static final String RESOURCE_UNIQUE_FIELD = "field.unique";
 
+    public static final String RESOURCE_FIELD_TYPE = "field.type";
+
     public static final String RESOURCE_ALGORITHM_CLASS = "algorithm.class";
 
     public static final String RESOURCE_URI_RESOLVER_CLASS = "resolver.class";
 
     public static final List<String> NON_SEARCHABLE_FIELDS = Arrays.asList(RESOURCE_NAME, RESOURCE_OBJECT,
-            RESOURCE_ROOT_NODE, RESOURCE_UNIQUE_FIELD, RESOURCE_ALGORITHM_CLASS, RESOURCE_URI_RESOLVER_CLASS);
+            RESOURCE_ROOT_NODE, RESOURCE_UNIQUE_FIELD, RESOURCE_FIELD_TYPE, RESOURCE_ALGORITHM_CLASS,
+            RESOURCE_URI_RESOLVER_CLASS);
 
     public static final List<String> MANDATORY_FIELDS = Arrays.asList(RESOURCE_NAME, RESOURCE_OBJECT,
             RESOURCE_ROOT_NODE, RESOURCE_ALGORITHM_CLASS, RESOURCE_URI_RESOLVER_CLASS);
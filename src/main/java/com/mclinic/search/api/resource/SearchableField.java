@@ -14,18 +14,30 @@
 
 package com.mclinic.search.api.resource;
 
+import com.jayway.jsonpath.JsonPath;
+
 public class SearchableField {
 
     private final String name;
 
     private final String expression;
 
+    private final JsonPath path;
+
     private final Boolean unique;
 
+    private final FieldType type;
+
     public SearchableField(final String name, final String expression, final Boolean unique) {
+        this(name, expression, unique, FieldType.STRING);
+    }
+
+    public SearchableField(final String name, final String expression, final Boolean unique, final FieldType type) {
         this.name = name;
         this.expression = expression;
+        this.path = JsonPath.compile(expression);
         this.unique = unique;
+        this.type = type;
     }
 
     /**
@@ -46,6 +58,16 @@ public class SearchableField {
         return expression;
     }
 
+    /**
+     * Get the compiled expression to get the actual value of the searchable field. The expression is compiled once
+     * when the searchable field is created and can be evaluated against many json objects.
+     *
+     * @return compiled expression to get the value of the searchable value
+     */
+    public JsonPath getPath() {
+        return path;
+    }
+
     /**
      * Flag to determine whether the value of this field would be unique for a resource.
      *
@@ -54,4 +76,13 @@ public class SearchableField {
     public Boolean isUnique() {
         return unique;
     }
+
+    /**
+     * Get the type of the value of this field. Numeric and date fields are indexed as trie encoded numbers.
+     *
+     * @return the type of this field
+     */
+    public FieldType getType() {
+        return type;
+    }
 }
@@ -0,0 +1,81 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.result;
+
+import org.apache.lucene.search.ScoreDoc;
+
+import java.util.List;
+
+/**
+ * A single page of objects returned by a cursor based search. The cursor of the page points to the last hit of the
+ * page and can be passed back to the search to get the next page.
+ * <p/>
+ * The cursor is only valid as long as the local repository is not changed. Passing the cursor after the repository is
+ * changed might skip or repeat some objects.
+ *
+ * @param <T> the type of the objects in the page.
+ */
+public class Page<T> {
+
+    private final List<T> objects;
+
+    private final ScoreDoc cursor;
+
+    private final int totalHits;
+
+    private final boolean hasNext;
+
+    public Page(final List<T> objects, final ScoreDoc cursor, final int totalHits, final boolean hasNext) {
+        this.objects = objects;
+        this.cursor = cursor;
+        this.totalHits = totalHits;
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Get the objects in this page.
+     *
+     * @return the objects in this page or empty list.
+     */
+    public List<T> getObjects() {
+        return objects;
+    }
+
+    /**
+     * Get the cursor to retrieve the next page.
+     *
+     * @return the cursor pointing to the last hit of this page.
+     */
+    public ScoreDoc getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Get the total number of objects matching the search, including the objects outside this page.
+     *
+     * @return the total number of matching objects.
+     */
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * Check whether there might be more objects after this page.
+     *
+     * @return true if the next page might contain more objects.
+     */
+    public boolean hasNext() {
+        return hasNext;
+    }
+}
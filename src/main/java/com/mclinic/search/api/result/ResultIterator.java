@@ -0,0 +1,30 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.result;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterator over all objects matching a search. The hits are fetched in batches and each object is only read from the
+ * local repository when it's returned by the iterator, so the whole result never need to be held in memory.
+ * <p/>
+ * The iterator will see the local repository as it was when the iterator was created. The iterator is released when
+ * <code>hasNext()</code> returns false, caller must call <code>close()</code> when the iteration is stopped before
+ * that.
+ *
+ * @param <T> the type of the objects returned by the iterator.
+ */
+public interface ResultIterator<T> extends Iterator<T>, Closeable {
+}
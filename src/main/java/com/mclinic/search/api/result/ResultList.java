@@ -0,0 +1,38 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.result;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Read only list view over all objects matching a search. The list only holds the id and the score of each hit, the
+ * object is read from the local repository and deserialized when the element is accessed. Recently accessed objects
+ * are kept in a bounded cache, so accessing the same element again will not deserialize the object again.
+ * <p/>
+ * The list will see the local repository as it was when the list was created. Caller must call <code>close()</code>
+ * when the list is no longer used, elements can't be accessed after the list is closed.
+ *
+ * @param <T> the type of the objects in the list.
+ */
+public interface ResultList<T> extends List<T>, Closeable {
+
+    /**
+     * Get the relevance score of the element at the index.
+     *
+     * @param index the index of the element.
+     * @return the relevance score of the element to the search.
+     */
+    float getScore(final int index);
+}
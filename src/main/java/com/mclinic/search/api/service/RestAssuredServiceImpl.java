@@ -15,26 +15,113 @@
 package com.mclinic.search.api.service;
 
 import com.google.inject.Inject;
+import com.google.inject.name.Named;
 import com.mclinic.search.api.RestAssuredService;
+import com.mclinic.search.api.internal.http.ConnectionManager;
 import com.mclinic.search.api.internal.lucene.Indexer;
+import com.mclinic.search.api.query.QueryBuilder;
+import com.mclinic.search.api.registry.Registry;
+import com.mclinic.search.api.resolver.PagingResolver;
 import com.mclinic.search.api.resolver.Resolver;
 import com.mclinic.search.api.resource.Resource;
+import com.mclinic.search.api.result.Page;
+import com.mclinic.search.api.result.ResultIterator;
+import com.mclinic.search.api.result.ResultList;
+import com.mclinic.search.api.util.DigestUtil;
+import com.mclinic.search.api.util.StreamUtil;
 import org.apache.lucene.queryParser.ParseException;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.URL;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
 import java.net.URLConnection;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class RestAssuredServiceImpl implements RestAssuredService {
 
+    private static final String ETAG_PREFIX = "etag:";
+
+    private static final String LAST_MODIFIED_PREFIX = "last-modified:";
+
+    private static final String MANIFEST_SEPARATOR = "|";
+
+    private static final String MANIFEST_VALUE_SEPARATOR = ",";
+
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private static final int DEFAULT_FETCH_THREADS = 4;
+
     private final Indexer indexer;
 
+    private final Registry<String, String> digestRegistry;
+
+    private Integer loadThreads;
+
+    private Integer fetchThreads;
+
+    private final ConnectionManager connectionManager;
+
+    private final QueryBuilder queryBuilder;
+
     @Inject
-    public RestAssuredServiceImpl(final Indexer indexer) {
+    public RestAssuredServiceImpl(final Indexer indexer, final Registry<String, String> digestRegistry,
+                                  final ConnectionManager connectionManager, final QueryBuilder queryBuilder) {
         this.indexer = indexer;
+        this.queryBuilder = queryBuilder;
+        this.digestRegistry = digestRegistry;
+        this.connectionManager = connectionManager;
+    }
+
+    /**
+     * Set the number of worker threads used to load the files of a directory. Each worker reads, parses and indexes a
+     * single file at a time into the shared index writer. The default value is a single thread, where the files are
+     * loaded sequentially on the calling thread.
+     *
+     * @param loadThreads the number of worker threads.
+     */
+    @Inject(optional = true)
+    private void setLoadThreads(final @Named("configuration.lucene.load.threads") Integer loadThreads) {
+        this.loadThreads = loadThreads;
+    }
+
+    /**
+     * Set the number of threads downloading the REST resources concurrently in the batch load. The default value is 4
+     * threads.
+     *
+     * @param fetchThreads the number of download threads.
+     */
+    @Inject(optional = true)
+    private void setFetchThreads(final @Named("configuration.rest.fetch.threads") Integer fetchThreads) {
+        this.fetchThreads = fetchThreads;
     }
 
     /**
@@ -48,6 +135,14 @@ public class RestAssuredServiceImpl implements RestAssuredService {
      * _resource : the resource configuration used to convert the json to lucene
      * _date_indexed : date and time when the json was indexed
      * </pre>
+     * The ETag and Last-Modified validators of the last response are kept for each resolved URI and sent back as
+     * conditional request headers. When the server answers with 304 (Not Modified), the download and the indexing are
+     * skipped.
+     * <p/>
+     * When the resolver is a {@link com.mclinic.search.api.resolver.PagingResolver}, all pages of the resource are
+     * loaded. The next page is downloaded while the current page is being indexed.
+     * <p/>
+     * The payload is requested using gzip or deflate transfer compression and decoded before it's indexed.
      *
      * @param searchString the string to filter object that from the REST resource.
      * @param resource     the resource object which will describe how to index the json resource to lucene.
@@ -57,18 +152,319 @@ public class RestAssuredServiceImpl implements RestAssuredService {
 
         Resolver resolver = resource.getResolver();
 
-        URL url = new URL(resolver.resolve(searchString));
-        URLConnection connection = url.openConnection();
-        connection = resolver.authenticate(connection);
+        String uri = resolver.resolve(searchString);
+        if (resolver instanceof PagingResolver) {
+            loadPages(uri, resource);
+            return;
+        }
+
+        URLConnection connection;
+        acquire(uri);
+        try {
+            connection = openConnection(uri, resolver, true);
+            if (connection == null)
+                return;
+
+            InputStream stream = connectionManager.getInputStream(connection);
+            try {
+                indexer.loadObjects(resource, stream);
+            } finally {
+                stream.close();
+            }
+        } finally {
+            connectionManager.release(uri);
+        }
+        indexer.commit();
+
+        // only keep the validators after the payload is indexed, a failed load must be downloaded again.
+        putValidators(uri, connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"));
+    }
 
-        indexer.loadObjects(resource, connection.getInputStream());
+    /**
+     * Load all pages of a paged REST resource. The next page is downloaded in the background while the current page is
+     * being indexed, and the index is committed once after the last page is indexed. The load stops at a link to a page
+     * which was already downloaded, so a server linking back to an earlier page can't keep the load running forever.
+     *
+     * @param uri      the resolved uri of the first page.
+     * @param resource the resource object which will describe how to index the json resource to lucene.
+     * @throws ParseException when the json can't be used to create a query to identify the correct lucene index.
+     * @throws IOException    when downloading or indexing a page failed.
+     */
+    private void loadPages(final String uri, final Resource resource) throws ParseException, IOException {
+        Set<String> visited = new HashSet<String>();
+        visited.add(uri);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Payload payload = fetchPayload(uri, resource);
+            while (payload != null) {
+                Future<Payload> next = null;
+                if (payload.next != null && visited.add(payload.next)) {
+                    final String nextUri = payload.next;
+                    next = executor.submit(new Callable<Payload>() {
+                        @Override
+                        public Payload call() throws Exception {
+                            return fetchPayload(nextUri, resource);
+                        }
+                    });
+                }
+                loadPayload(payload);
+                payload = next == null ? null : next.get();
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the next page to be downloaded.");
+        } finally {
+            executor.shutdownNow();
+        }
         indexer.commit();
     }
 
+    /**
+     * Open the connection to the REST resource, optionally sending the validators of the last response as conditional
+     * request headers.
+     *
+     * @param uri         the resolved uri of the REST resource.
+     * @param resolver    the resolver used to authenticate the connection.
+     * @param conditional whether the validators of the last response should be sent.
+     * @return the connection or null when the server answers with 304 (Not Modified).
+     * @throws IOException when opening the connection failed.
+     */
+    private URLConnection openConnection(final String uri, final Resolver resolver, final boolean conditional)
+            throws IOException {
+        URLConnection connection = connectionManager.openConnection(uri, resolver);
+        if (!conditional)
+            return connection;
+
+        String etag = getValidator(ETAG_PREFIX + uri);
+        if (etag != null)
+            connection.setRequestProperty("If-None-Match", etag);
+        String lastModified = getValidator(LAST_MODIFIED_PREFIX + uri);
+        if (lastModified != null)
+            connection.setRequestProperty("If-Modified-Since", lastModified);
+
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection httpConnection = (HttpURLConnection) connection;
+            if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                // release the connection without disconnecting, so the socket can be reused by the next request.
+                connectionManager.discard(httpConnection);
+                return null;
+            }
+        }
+        return connection;
+    }
+
+    private void acquire(final String uri) throws IOException {
+        try {
+            connectionManager.acquire(uri);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection to: '" + uri + "'.");
+        }
+    }
+
+    /**
+     * Load objects from many REST resources into local lucene repository. Each resource will be loaded once for every
+     * search string mapped to the resource.
+     * <p/>
+     * The load is performed as a pipeline: the payloads are downloaded by <code>configuration.rest.fetch.threads</code>
+     * threads with at most <code>configuration.rest.host.connections</code> concurrent downloads per host, while the
+     * downloaded payloads are parsed and indexed by <code>configuration.lucene.load.threads</code> threads. Only a
+     * limited number of downloaded payloads are held in memory waiting to be indexed. The index is committed once
+     * after all payloads are indexed.
+     * <p/>
+     * Pages of a resource using {@link com.mclinic.search.api.resolver.PagingResolver} are downloaded as soon as the
+     * link to the page is known, and indexed like any other payload. A link to a page of the resource which was already
+     * downloaded is not followed.
+     *
+     * @param searchStrings the search strings to filter object from the REST resource, mapped by the resource.
+     * @see com.mclinic.search.api.RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource)
+     */
+    @Override
+    public void loadObjects(final Map<Resource, List<String>> searchStrings) throws ParseException, IOException {
+        int fetchCount = fetchThreads == null ? DEFAULT_FETCH_THREADS : Math.max(1, fetchThreads);
+        int indexCount = loadThreads == null ? 1 : Math.max(1, loadThreads);
+        // payloads waiting in memory, downloads will block when the indexing stage is falling behind.
+        final Semaphore buffers = new Semaphore(fetchCount + indexCount);
+
+        ExecutorService fetchExecutor = Executors.newFixedThreadPool(fetchCount);
+        ExecutorService indexExecutor = Executors.newFixedThreadPool(indexCount);
+        CompletionService<Payload> fetches = new ExecutorCompletionService<Payload>(fetchExecutor);
+        List<Payload> payloads = new ArrayList<Payload>();
+        // uris of the downloaded pages of each resource, following a link back to one of them would never end.
+        Map<Resource, Set<String>> visited = new HashMap<Resource, Set<String>>();
+        try {
+            int pending = 0;
+            for (Map.Entry<Resource, List<String>> entry : searchStrings.entrySet()) {
+                Resource resource = entry.getKey();
+                Set<String> uris = new HashSet<String>();
+                visited.put(resource, uris);
+                for (String searchString : entry.getValue()) {
+                    String uri = resource.getResolver().resolve(searchString);
+                    uris.add(uri);
+                    submitFetch(fetches, buffers, uri, resource);
+                    pending++;
+                }
+            }
+
+            List<Future<Payload>> indexes = new ArrayList<Future<Payload>>();
+            while (pending > 0) {
+                final Payload payload = fetches.take().get();
+                pending--;
+                if (payload == null)
+                    continue;
+                if (payload.next != null && visited.get(payload.resource).add(payload.next)) {
+                    submitFetch(fetches, buffers, payload.next, payload.resource);
+                    pending++;
+                }
+                indexes.add(indexExecutor.submit(new Callable<Payload>() {
+                    @Override
+                    public Payload call() throws Exception {
+                        try {
+                            loadPayload(payload);
+                        } finally {
+                            buffers.release();
+                        }
+                        return payload;
+                    }
+                }));
+            }
+            for (Future<Payload> index : indexes)
+                payloads.add(index.get());
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the resources to be loaded.");
+        } finally {
+            fetchExecutor.shutdownNow();
+            indexExecutor.shutdownNow();
+        }
+
+        indexer.commit();
+
+        // only keep the validators after the payloads are indexed, a failed load must be downloaded again.
+        for (Payload payload : payloads) {
+            if (!(payload.resource.getResolver() instanceof PagingResolver))
+                putValidators(payload.uri, payload.etag, payload.lastModified);
+        }
+    }
+
+    private void submitFetch(final CompletionService<Payload> fetches, final Semaphore buffers, final String uri,
+                             final Resource resource) {
+        fetches.submit(new Callable<Payload>() {
+            @Override
+            public Payload call() throws Exception {
+                buffers.acquire();
+                Payload payload = null;
+                try {
+                    payload = fetchPayload(uri, resource);
+                } finally {
+                    if (payload == null)
+                        buffers.release();
+                }
+                return payload;
+            }
+        });
+    }
+
+    /**
+     * Download the whole payload of the REST resource, limiting the number of concurrent downloads from a single host.
+     * The payload is kept in the transfer encoding until it's indexed. When the resource is paged, the page is decoded
+     * once while it's downloaded, and the decoded page is used both to resolve the link to the next page and to index
+     * the page.
+     *
+     * @param uri      the resolved uri of the REST resource.
+     * @param resource the resource object which will describe how to index the json resource to lucene.
+     * @return the downloaded payload or null when the resource is not modified.
+     * @throws IOException          when the download failed.
+     * @throws InterruptedException when the thread was interrupted while waiting for a connection to the host.
+     */
+    private Payload fetchPayload(final String uri, final Resource resource) throws IOException, InterruptedException {
+        Resolver resolver = resource.getResolver();
+        boolean paged = resolver instanceof PagingResolver;
+
+        connectionManager.acquire(uri);
+        try {
+            URLConnection connection = openConnection(uri, resolver, !paged);
+            if (connection == null)
+                return null;
+
+            if (paged) {
+                String json = readPayload(connectionManager.getInputStream(connection));
+                String next = ((PagingResolver) resolver).resolveNext(uri, json);
+                return new Payload(resource, uri, null, null, json, null, null, next);
+            }
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            InputStream stream = connection.getInputStream();
+            try {
+                int count;
+                byte[] buffer = new byte[8192];
+                while ((count = stream.read(buffer)) != -1)
+                    outputStream.write(buffer, 0, count);
+            } finally {
+                stream.close();
+            }
+            return new Payload(resource, uri, outputStream.toByteArray(), connection.getContentEncoding(), null,
+                    connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"), null);
+        } finally {
+            connectionManager.release(uri);
+        }
+    }
+
+    private void loadPayload(final Payload payload) throws ParseException, IOException {
+        if (payload.json != null) {
+            indexer.loadObjects(payload.resource, new StringReader(payload.json));
+            return;
+        }
+
+        InputStream stream = connectionManager.decode(new ByteArrayInputStream(payload.content), payload.encoding);
+        try {
+            indexer.loadObjects(payload.resource, stream);
+        } finally {
+            stream.close();
+        }
+    }
+
+    private String readPayload(final InputStream stream) throws IOException {
+        try {
+            return StreamUtil.readAsString(new InputStreamReader(stream, "UTF-8"));
+        } finally {
+            stream.close();
+        }
+    }
+
+    private void putValidators(final String uri, final String etag, final String lastModified) {
+        putValidator(ETAG_PREFIX + uri, etag);
+        putValidator(LAST_MODIFIED_PREFIX + uri, lastModified);
+    }
+
+    private String getValidator(final String key) {
+        synchronized (digestRegistry) {
+            return digestRegistry.getEntryValue(key);
+        }
+    }
+
+    private void putValidator(final String key, final String value) {
+        synchronized (digestRegistry) {
+            if (value == null)
+                digestRegistry.removeEntry(key);
+            else
+                digestRegistry.putEntry(key, value);
+        }
+    }
+
     /**
      * Load object described using the <code>resource</code> into local lucene repository. This method will load locally
      * saved json payload and then apply the <code>searchString</code> to limit the data which will be loaded into the
      * local lucene repository.
+     * <p/>
+     * When <code>configuration.lucene.load.threads</code> is configured, the files of a directory are loaded by that
+     * many worker threads and the index is committed once after all files are loaded.
+     * <p/>
+     * Files with <code>.gz</code> extension (e.g. <code>patients.json.gz</code>) are decompressed using gzip.
      *
      * @param searchString the search string to filter object returned from the file.
      * @param resource     the resource object which will describe how to index the json resource to lucene.
@@ -78,30 +474,214 @@ public class RestAssuredServiceImpl implements RestAssuredService {
     @Override
     public void loadObjects(final String searchString, final Resource resource, final File file)
             throws ParseException, IOException {
-        loadObjects(searchString, resource, file, true);
+        List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+        for (final File jsonFile : listFiles(file, new ArrayList<File>())) {
+            tasks.add(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    loadFile(resource, jsonFile, null);
+                    return Boolean.TRUE;
+                }
+            });
+        }
+        executeTasks(tasks);
+        indexer.commit();
     }
 
-    private void loadObjects(final String searchString, final Resource resource, final File file,
-                             final boolean commit) throws ParseException, IOException {
+    /**
+     * Load object described using the <code>resource</code> into local lucene repository, only indexing the files which
+     * changed since the last load recorded in the <code>manifest</code>. This method will load locally saved json
+     * payload and then apply the <code>searchString</code> to limit the data which will be loaded into the local lucene
+     * repository.
+     * <p/>
+     * The manifest keeps the size, last modified time and SHA-1 digest of every loaded file. A file with the same size
+     * and last modified time is skipped without being read, otherwise the digest is used to decide whether the file
+     * need to be indexed again. Objects loaded from files which are no longer under <code>file</code> are removed from
+     * the local repository.
+     *
+     * @param searchString the search string to filter object returned from the file.
+     * @param resource     the resource object which will describe how to index the json resource to lucene.
+     * @param file         the file in the filesystem where the json resource is saved.
+     * @param manifest     the file in the filesystem where the state of the loaded files is saved.
+     * @see com.mclinic.search.api.RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource,
+     *      java.io.File)
+     */
+    @Override
+    public void loadObjects(final String searchString, final Resource resource, final File file, final File manifest)
+            throws ParseException, IOException {
+        final Properties entries = readManifest(manifest);
+        Set<String> paths = new HashSet<String>();
+        List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+        for (final File jsonFile : listFiles(file, new ArrayList<File>())) {
+            paths.add(jsonFile.getAbsolutePath());
+            tasks.add(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return syncFile(resource, jsonFile, entries);
+                }
+            });
+        }
+        boolean changed = executeTasks(tasks);
+
+        String prefix = resource.getName() + MANIFEST_SEPARATOR;
+        String root = file.getAbsolutePath();
+        for (String key : entries.stringPropertyNames()) {
+            if (!key.startsWith(prefix))
+                continue;
+            String path = key.substring(prefix.length());
+            if (!paths.contains(path) && (path.equals(root) || path.startsWith(root + File.separator))) {
+                indexer.deleteObjects(resource, path);
+                entries.remove(key);
+                changed = true;
+            }
+        }
+
+        if (changed)
+            indexer.commit();
+        // only write the manifest after the changes are committed, a failed load must be indexed again.
+        writeManifest(manifest, entries);
+    }
+
+    private List<File> listFiles(final File file, final List<File> files) {
         if (!file.isDirectory()) {
-            FileInputStream stream = null;
+            files.add(file);
+        } else {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children)
+                    listFiles(child, files);
+            }
+        }
+        return files;
+    }
+
+    private void loadFile(final Resource resource, final File file, final String source)
+            throws ParseException, IOException {
+        InputStream stream = null;
+        try {
+            stream = new FileInputStream(file);
+            if (file.getName().endsWith(GZIP_EXTENSION))
+                stream = connectionManager.decode(stream, "gzip");
+            indexer.loadObjects(resource, stream, source);
+        } finally {
+            if (stream != null)
+                stream.close();
+        }
+    }
+
+    /**
+     * Index a single file when the file changed since the last load recorded in the manifest entries. The entries are
+     * shared between the workers, the entry of the file is updated after the file is indexed.
+     *
+     * @param resource the resource object which will describe how to index the json resource to lucene.
+     * @param file     the file in the filesystem where the json resource is saved.
+     * @param entries  the manifest entries of the previous load.
+     * @return true when the file was indexed.
+     */
+    private boolean syncFile(final Resource resource, final File file, final Properties entries)
+            throws ParseException, IOException {
+        String path = file.getAbsolutePath();
+        String key = resource.getName() + MANIFEST_SEPARATOR + path;
+        String stat = file.length() + MANIFEST_VALUE_SEPARATOR + file.lastModified();
+        String entry = entries.getProperty(key);
+        if (entry != null && entry.startsWith(stat + MANIFEST_VALUE_SEPARATOR))
+            return false;
+
+        boolean changed = false;
+        String checksum = getChecksum(file);
+        if (entry == null || !entry.endsWith(MANIFEST_VALUE_SEPARATOR + checksum)) {
+            loadFile(resource, file, path);
+            changed = true;
+        }
+        entries.setProperty(key, stat + MANIFEST_VALUE_SEPARATOR + checksum);
+        return changed;
+    }
+
+    /**
+     * Execute the file loading tasks. When more than one load thread is configured, the tasks are executed by a fixed
+     * pool of workers. The queue in front of the workers is bounded, when it's full the calling thread will execute
+     * the next task itself, so the files are never read much faster than they can be indexed.
+     *
+     * @param tasks the loading tasks.
+     * @return true when any of the tasks changed the index.
+     */
+    private boolean executeTasks(final List<Callable<Boolean>> tasks) throws ParseException, IOException {
+        boolean changed = false;
+        int threads = loadThreads == null ? 1 : Math.min(loadThreads, tasks.size());
+        if (threads <= 1) {
+            for (Callable<Boolean> task : tasks) {
+                try {
+                    changed = task.call() || changed;
+                } catch (Exception e) {
+                    throw unwrap(e);
+                }
+            }
+            return changed;
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for (Callable<Boolean> task : tasks)
+                futures.add(executor.submit(task));
+            for (Future<Boolean> future : futures)
+                changed = future.get() || changed;
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the files to be loaded.");
+        } finally {
+            executor.shutdownNow();
+        }
+        return changed;
+    }
+
+    private IOException unwrap(final Throwable throwable) throws ParseException {
+        if (throwable instanceof ParseException)
+            throw (ParseException) throwable;
+        if (throwable instanceof RuntimeException)
+            throw (RuntimeException) throwable;
+        if (throwable instanceof Error)
+            throw (Error) throwable;
+        if (throwable instanceof IOException)
+            return (IOException) throwable;
+        return new IOException("Unable to load the files into the local repository.", throwable);
+    }
+
+    private String getChecksum(final File file) throws IOException {
+        try {
+            return DigestUtil.getSHA1Checksum(file);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Unable to calculate the checksum of file: '" + file.getPath() + "'.", e);
+        }
+    }
+
+    private Properties readManifest(final File manifest) throws IOException {
+        Properties entries = new Properties();
+        if (manifest.exists()) {
+            InputStream stream = null;
             try {
-                stream = new FileInputStream(file);
-                indexer.loadObjects(resource, stream);
+                stream = new FileInputStream(manifest);
+                entries.load(stream);
             } finally {
                 if (stream != null)
                     stream.close();
             }
-        } else {
-            File[] files = file.listFiles();
-            if (files != null) {
-                for (File jsonFile : files)
-                    loadObjects(searchString, resource, jsonFile, false);
-            }
         }
+        return entries;
+    }
 
-        if (commit)
-            indexer.commit();
+    private void writeManifest(final File manifest, final Properties entries) throws IOException {
+        OutputStream stream = null;
+        try {
+            stream = new FileOutputStream(manifest);
+            entries.store(stream, null);
+        } finally {
+            if (stream != null)
+                stream.close();
+        }
     }
 
     /**
@@ -167,6 +747,299 @@ public class RestAssuredServiceImpl implements RestAssuredService {
         return indexer.getObjects(searchString, resource);
     }
 
+    /**
+     * Search for a range of objects with matching <code>searchString</code> and <code>clazz</code> type from the local
+     * repository. The objects are ordered by their relevance to the search string.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param clazz        the expected return type of the object
+     * @param offset       the number of matching objects to skip
+     * @param limit        the maximum number of returned objects
+     * @return list of at most <code>limit</code> matching objects starting at <code>offset</code> or empty list
+     */
+    @Override
+    public <T> List<T> getObjects(final String searchString, final Class<T> clazz, final int offset, final int limit)
+            throws ParseException, IOException {
+        return indexer.getObjects(searchString, clazz, offset, limit);
+    }
+
+    /**
+     * Search for a range of objects with matching <code>searchString</code> and <code>resource</code> type from the
+     * local repository. The objects are ordered by their relevance to the search string.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param resource     the resource descriptor used to register the object
+     * @param offset       the number of matching objects to skip
+     * @param limit        the maximum number of returned objects
+     * @return list of at most <code>limit</code> matching objects starting at <code>offset</code> or empty list
+     */
+    @Override
+    public List<Object> getObjects(final String searchString, final Resource resource, final int offset,
+                                   final int limit) throws ParseException, IOException {
+        return indexer.getObjects(searchString, resource, offset, limit);
+    }
+
+    /**
+     * Get the builder to create lucene queries on the searchable fields without writing and parsing search strings.
+     * Queries created by the builder can be reused for many searches.
+     *
+     * @return the query builder
+     */
+    @Override
+    public QueryBuilder getQueryBuilder() {
+        return queryBuilder;
+    }
+
+    /**
+     * Search for an object matching the <code>query</code> and <code>clazz</code> type from the local repository. This
+     * method will only return single object or null if no object match the query.
+     *
+     * @param query the query created using the query builder
+     * @param clazz the expected return type of the object
+     * @return object matching the query and clazz or null
+     */
+    @Override
+    public <T> T getObject(final Query query, final Class<T> clazz) throws IOException {
+        return indexer.getObject(query, clazz);
+    }
+
+    /**
+     * Search for an object matching the <code>query</code> and <code>resource</code> from the local repository. This
+     * method will only return single object or null if no object match the query.
+     *
+     * @param query    the query created using the query builder
+     * @param resource the resource descriptor used to register the object
+     * @return object matching the query and resource or null
+     */
+    @Override
+    public Object getObject(final Query query, final Resource resource) throws IOException {
+        return indexer.getObject(query, resource);
+    }
+
+    /**
+     * Get an object by the value of the unique searchable field of its resource. The key is looked up directly in the
+     * index without parsing a query or scoring the hits, which makes this the fastest way to read a single object.
+     * <p/>
+     * The key is matched regardless of its case, because unique values are indexed in lower case, and only objects of
+     * resources with a single unique searchable field can be found this way. Use <code>getObject</code> for resources
+     * with several unique fields.
+     *
+     * @param key   the value of the unique searchable field of the object
+     * @param clazz the expected return type of the object
+     * @return object with matching key and clazz or null
+     */
+    @Override
+    public <T> T getObjectByKey(final String key, final Class<T> clazz) throws IOException {
+        return indexer.getObjectByKey(key, clazz);
+    }
+
+    /**
+     * Get an object of the resource by the value of the unique searchable field of the resource. The key is looked up
+     * directly in the index without parsing a query or scoring the hits, and it's matched regardless of its case.
+     *
+     * @param key      the value of the unique searchable field of the object
+     * @param resource the resource descriptor used to register the object
+     * @return object with matching key or null
+     */
+    @Override
+    public Object getObjectByKey(final String key, final Resource resource) throws IOException {
+        return indexer.getObjectByKey(key, resource);
+    }
+
+    /**
+     * Search for objects matching the <code>query</code> and <code>clazz</code> type from the local repository. The
+     * query is executed as is, without going through the query parser.
+     *
+     * @param query the query created using the query builder
+     * @param clazz the expected return type of the object
+     * @return list of all object matching the <code>query</code> and <code>clazz</code> or empty list
+     */
+    @Override
+    public <T> List<T> getObjects(final Query query, final Class<T> clazz) throws IOException {
+        return indexer.getObjects(query, clazz);
+    }
+
+    /**
+     * Search for objects matching the <code>query</code> and <code>resource</code> from the local repository. The
+     * query is executed as is, without going through the query parser.
+     *
+     * @param query    the query created using the query builder
+     * @param resource the resource descriptor used to register the object
+     * @return list of all object matching the <code>query</code> and <code>resource</code> or empty list
+     */
+    @Override
+    public List<Object> getObjects(final Query query, final Resource resource) throws IOException {
+        return indexer.getObjects(query, resource);
+    }
+
+    /**
+     * Search for a range of objects matching the <code>query</code> and <code>clazz</code> type from the local
+     * repository. The objects are ordered by their relevance to the query.
+     *
+     * @param query  the query created using the query builder
+     * @param clazz  the expected return type of the object
+     * @param offset the number of matching objects to skip
+     * @param limit  the maximum number of returned objects
+     * @return list of at most <code>limit</code> matching objects starting at <code>offset</code> or empty list
+     */
+    @Override
+    public <T> List<T> getObjects(final Query query, final Class<T> clazz, final int offset, final int limit)
+            throws IOException {
+        return indexer.getObjects(query, clazz, offset, limit);
+    }
+
+    /**
+     * Search for a range of objects matching the <code>query</code> and <code>resource</code> from the local
+     * repository. The objects are ordered by their relevance to the query.
+     *
+     * @param query    the query created using the query builder
+     * @param resource the resource descriptor used to register the object
+     * @param offset   the number of matching objects to skip
+     * @param limit    the maximum number of returned objects
+     * @return list of at most <code>limit</code> matching objects starting at <code>offset</code> or empty list
+     */
+    @Override
+    public List<Object> getObjects(final Query query, final Resource resource, final int offset, final int limit)
+            throws IOException {
+        return indexer.getObjects(query, resource, offset, limit);
+    }
+
+    /**
+     * Search for a range of objects with matching <code>searchString</code> and <code>clazz</code> type from the local
+     * repository and return only the stored values of the selected searchable fields.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param clazz        the expected type of the object
+     * @param fields       the name of the searchable fields to return
+     * @param offset       the number of matching objects to skip
+     * @param limit        the maximum number of returned objects
+     * @return the values of the selected fields for each matching object, keyed by the name of the field
+     */
+    @Override
+    public List<Map<String, String>> getFieldValues(final String searchString, final Class<?> clazz,
+                                                    final List<String> fields, final int offset, final int limit)
+            throws ParseException, IOException {
+        return indexer.getFieldValues(searchString, clazz, fields, offset, limit);
+    }
+
+    /**
+     * Search for a range of objects with matching <code>searchString</code> and <code>resource</code> type from the
+     * local repository and return only the stored values of the selected searchable fields.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param resource     the resource descriptor used to register the object
+     * @param fields       the name of the searchable fields to return
+     * @param offset       the number of matching objects to skip
+     * @param limit        the maximum number of returned objects
+     * @return the values of the selected fields for each matching object, keyed by the name of the field
+     */
+    @Override
+    public List<Map<String, String>> getFieldValues(final String searchString, final Resource resource,
+                                                    final List<String> fields, final int offset, final int limit)
+            throws ParseException, IOException {
+        return indexer.getFieldValues(searchString, resource, fields, offset, limit);
+    }
+
+    /**
+     * Search for a page of objects with matching <code>searchString</code> and <code>clazz</code> type from the local
+     * repository, starting after the <code>cursor</code>. Pass the cursor of the returned page to get the next page.
+     * <p/>
+     * Unlike the offset based search, the cost of getting a page doesn't grow with the number of the previous pages.
+     * The cursor is only valid as long as the local repository is not changed.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param clazz        the expected return type of the object
+     * @param cursor       the cursor of the previous page or null to get the first page
+     * @param limit        the maximum number of objects in the page
+     * @return the page of matching objects
+     */
+    @Override
+    public <T> Page<T> getPage(final String searchString, final Class<T> clazz, final ScoreDoc cursor, final int limit)
+            throws ParseException, IOException {
+        return indexer.getPage(searchString, clazz, cursor, limit);
+    }
+
+    /**
+     * Search for a page of objects with matching <code>searchString</code> and <code>resource</code> type from the
+     * local repository, starting after the <code>cursor</code>. Pass the cursor of the returned page to get the next
+     * page.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param resource     the resource descriptor used to register the object
+     * @param cursor       the cursor of the previous page or null to get the first page
+     * @param limit        the maximum number of objects in the page
+     * @return the page of matching objects
+     */
+    @Override
+    public Page<Object> getPage(final String searchString, final Resource resource, final ScoreDoc cursor,
+                                final int limit) throws ParseException, IOException {
+        return indexer.getPage(searchString, resource, cursor, limit);
+    }
+
+    /**
+     * Iterate over all objects with matching <code>searchString</code> and <code>clazz</code> type from the local
+     * repository. Objects are read from the repository as the iterator advances, so the whole result is never held in
+     * memory. The iterator must be closed when the iteration is stopped before the last object.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param clazz        the expected return type of the object
+     * @return iterator over all matching objects
+     */
+    @Override
+    public <T> ResultIterator<T> iterateObjects(final String searchString, final Class<T> clazz)
+            throws ParseException, IOException {
+        return indexer.iterateObjects(searchString, clazz);
+    }
+
+    /**
+     * Iterate over all objects with matching <code>searchString</code> and <code>resource</code> type from the local
+     * repository. Objects are read from the repository as the iterator advances, so the whole result is never held in
+     * memory. The iterator must be closed when the iteration is stopped before the last object.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param resource     the resource descriptor used to register the object
+     * @return iterator over all matching objects
+     */
+    @Override
+    public ResultIterator<Object> iterateObjects(final String searchString, final Resource resource)
+            throws ParseException, IOException {
+        return indexer.iterateObjects(searchString, resource);
+    }
+
+    /**
+     * Search for objects with matching <code>searchString</code> and <code>clazz</code> type from the local repository
+     * and return them as a lazy list. The list only holds the hits, each object is read and deserialized when the
+     * element is accessed, which is cheaper than <code>getObjects</code> when only some of the objects are used.
+     * <p/>
+     * The returned list must be closed when it's no longer used.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param clazz        the expected return type of the object
+     * @return lazy list of all object with matching <code>searchString</code> and <code>clazz</code>
+     */
+    @Override
+    public <T> ResultList<T> getResultList(final String searchString, final Class<T> clazz)
+            throws ParseException, IOException {
+        return indexer.getResultList(searchString, clazz);
+    }
+
+    /**
+     * Search for objects with matching <code>searchString</code> and <code>resource</code> type from the local
+     * repository and return them as a lazy list. The list only holds the hits, each object is read and deserialized
+     * when the element is accessed.
+     * <p/>
+     * The returned list must be closed when it's no longer used.
+     *
+     * @param searchString the search string to limit the number of returned object
+     * @param resource     the resource descriptor used to register the object
+     * @return lazy list of all object with matching <code>searchString</code> and <code>resource</code>
+     */
+    @Override
+    public ResultList<Object> getResultList(final String searchString, final Resource resource)
+            throws ParseException, IOException {
+        return indexer.getResultList(searchString, resource);
+    }
+
     /**
      * Remove an object based on the resource from the local repository. The method will determine if there's unique
      * <code>object</code> in the local repository and then remove it. This method will return null if there's no
@@ -215,4 +1088,70 @@ public class RestAssuredServiceImpl implements RestAssuredService {
     public Object updateObject(final Object object, final Resource resource) throws ParseException, IOException {
         return indexer.updateObject(object, resource);
     }
+
+    /**
+     * Wait until the last create, update or invalidate performed by the calling thread is persisted in the local
+     * repository.
+     *
+     * @throws IOException when the commit failed or the waiting thread was interrupted.
+     */
+    @Override
+    public void awaitCommit() throws IOException {
+        indexer.awaitCommit();
+    }
+
+    /**
+     * Get the number of searches answered from the query result cache since the service was created. The cache is
+     * enabled by setting <code>configuration.lucene.query.cache.size</code>.
+     *
+     * @return the number of query cache hits
+     */
+    @Override
+    public long getQueryCacheHits() {
+        return indexer.getQueryCacheHits();
+    }
+
+    /**
+     * Get the number of searches executed on the index because their result was not in the query result cache.
+     *
+     * @return the number of query cache misses
+     */
+    @Override
+    public long getQueryCacheMisses() {
+        return indexer.getQueryCacheMisses();
+    }
+
+    /**
+     * Downloaded payload of a single REST resource waiting to be indexed.
+     */
+    private static final class Payload {
+
+        private final Resource resource;
+
+        private final String uri;
+
+        private final byte[] content;
+
+        private final String encoding;
+
+        private final String json;
+
+        private final String etag;
+
+        private final String lastModified;
+
+        private final String next;
+
+        private Payload(final Resource resource, final String uri, final byte[] content, final String encoding,
+                        final String json, final String etag, final String lastModified, final String next) {
+            this.resource = resource;
+            this.uri = uri;
+            this.content = content;
+            this.encoding = encoding;
+            this.json = json;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.next = next;
+        }
+    }
 }
@@ -14,7 +14,15 @@
 
 package com.mclinic.search.api;
 
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.google.inject.name.Names;
+import com.mclinic.search.api.internal.lucene.Indexer;
+import com.jayway.jsonpath.JsonPath;
 import com.mclinic.search.api.module.UnitTestModule;
+import com.mclinic.search.api.resolver.PagingResolver;
+import com.mclinic.search.api.resolver.Resolver;
+import com.mclinic.search.api.resource.ObjectResource;
 import com.mclinic.search.api.resource.Resource;
 import com.mclinic.search.api.sample.algorithm.CohortAlgorithm;
 import com.mclinic.search.api.sample.algorithm.CohortMemberAlgorithm;
@@ -28,14 +36,40 @@ import com.mclinic.search.api.sample.resolver.CohortResolver;
 import com.mclinic.search.api.sample.resolver.ObservationResolver;
 import com.mclinic.search.api.sample.resolver.PatientResolver;
 import com.mclinic.search.api.util.StringUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
 import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 public class RestAssuredServiceTest {
 
@@ -49,10 +83,15 @@ public class RestAssuredServiceTest {
 
     private RestAssuredService service;
 
+    private final List<HttpServer> servers = new ArrayList<HttpServer>();
+
     @Before
     public void prepare() throws Exception {
+        initialize(new UnitTestModule());
+    }
 
-        Context.initialize(new UnitTestModule());
+    private void initialize(final Module... modules) throws Exception {
+        Context.initialize(modules);
         // register classes for the testing (algorithms, resolver, object)
         Context.registerAlgorithm(PatientAlgorithm.class, CohortAlgorithm.class, CohortMemberAlgorithm.class,
                 ObservationAlgorithm.class);
@@ -66,6 +105,69 @@ public class RestAssuredServiceTest {
         service = Context.getService();
     }
 
+    @After
+    public void cleanUp() throws Exception {
+        for (HttpServer server : servers) {
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdown();
+        }
+        // release the index writer lock so the next test can open the index
+        Context.getInstance(Indexer.class).close();
+    }
+
+    private String patientJson(final String uuid, final String display) {
+        return "{" +
+                "\"uuid\":\"" + uuid + "\"," +
+                "\"identifiers\":[{\"identifier\":\"" + uuid.substring(0, 8) + "\"}]," +
+                "\"person\":{\"display\":\"" + display + "\",\"gender\":\"F\",\"age\":30," +
+                "\"birthdate\":\"1982-01-01T00:00:00.000+0300\"}" +
+                "}";
+    }
+
+    /**
+     * Start a local http server handling the requests to the path. The server is stopped after the test.
+     */
+    private HttpServer startServer(final String path, final HttpHandler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext(path, handler);
+        server.start();
+        servers.add(server);
+        return server;
+    }
+
+    private String getUri(final HttpServer server, final String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    private void respond(final HttpExchange exchange, final byte[] body) throws IOException {
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private Resource createResource(final String name, final String uri) {
+        return createResource(name, "$", new Resolver() {
+            @Override
+            public String resolve(final String searchString) {
+                return uri + searchString;
+            }
+
+            @Override
+            public URLConnection authenticate(final URLConnection connection) {
+                return connection;
+            }
+        });
+    }
+
+    private Resource createResource(final String name, final String rootNode, final Resolver resolver) {
+        Resource resource = new ObjectResource(name, rootNode, Patient.class, new PatientAlgorithm(), resolver);
+        resource.addFieldDefinition("uuid", "$.uuid", Boolean.TRUE);
+        resource.addFieldDefinition("name", "$.person.display", Boolean.FALSE);
+        Context.registerResource(resource);
+        return resource;
+    }
+
     /**
      * @verifies load objects based on the resource description
      * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource)
@@ -129,6 +231,119 @@ public class RestAssuredServiceTest {
         Assert.assertEquals(Patient.class, patient.getClass());
     }
 
+    private File copyCorpus() throws Exception {
+        URL corpus = RestAssuredService.class.getResource("sample/corpus");
+        File directory = new File(System.getProperty("java.io.tmpdir"), "corpus-" + UUID.randomUUID());
+        Assert.assertTrue(directory.mkdirs());
+        File[] files = new File(corpus.getPath()).listFiles();
+        Assert.assertNotNull(files);
+        for (File file : files) {
+            InputStream inputStream = new FileInputStream(file);
+            OutputStream outputStream = new FileOutputStream(new File(directory, file.getName()));
+            try {
+                byte[] buffer = new byte[1024];
+                int count;
+                while ((count = inputStream.read(buffer)) != -1)
+                    outputStream.write(buffer, 0, count);
+            } finally {
+                inputStream.close();
+                outputStream.close();
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * @verifies load objects from directory using multiple threads
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource, java.io.File)
+     */
+    @Test
+    public void loadObjects_shouldLoadObjectsFromDirectoryUsingMultipleThreads() throws Exception {
+        cleanUp();
+        initialize(new UnitTestModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Integer.class).annotatedWith(Names.named("configuration.lucene.load.threads")).toInstance(2);
+            }
+        });
+
+        File directory = copyCorpus();
+        Resource resource = Context.getResource("Patient Resource");
+        Assert.assertNotNull(resource);
+        service.loadObjects(StringUtil.EMPTY, resource, directory);
+
+        String[] names = {FILE_PATIENT_NAME, "Testarius Kungu Paul", "Testarius Kapkiyei Bowen"};
+        for (String name : names) {
+            Patient patient = service.getObject("name: " + StringUtil.quote(name), Patient.class);
+            Assert.assertNotNull(patient);
+            Assert.assertEquals(Patient.class, patient.getClass());
+        }
+    }
+
+    /**
+     * @verifies load object from filesystem based on the resource description
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource, java.io.File, java.io.File)
+     */
+    @Test
+    public void loadObjects_shouldLoadObjectFromFilesystemUsingTheManifest() throws Exception {
+        File directory = copyCorpus();
+        File manifest = new File(directory.getParentFile(), directory.getName() + ".properties");
+
+        Resource resource = Context.getResource("Patient Resource");
+        Assert.assertNotNull(resource);
+        service.loadObjects(StringUtil.EMPTY, resource, directory, manifest);
+        Assert.assertTrue(manifest.exists());
+
+        Patient patient = service.getObject("name: " + StringUtil.quote(FILE_PATIENT_NAME), Patient.class);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals(Patient.class, patient.getClass());
+    }
+
+    /**
+     * @verifies skip files which are not changed since the last load
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource, java.io.File, java.io.File)
+     */
+    @Test
+    public void loadObjects_shouldSkipFilesWhichAreNotChangedSinceTheLastLoad() throws Exception {
+        File directory = copyCorpus();
+        File manifest = new File(directory.getParentFile(), directory.getName() + ".properties");
+
+        Resource resource = Context.getResource("Patient Resource");
+        service.loadObjects(StringUtil.EMPTY, resource, directory, manifest);
+        Patient patient = service.getObject("name: " + StringUtil.quote(FILE_PATIENT_NAME), Patient.class);
+        Assert.assertNotNull(patient);
+
+        // remove the object from the index only, an unchanged file must not be indexed again.
+        service.invalidate(patient, resource);
+        service.loadObjects(StringUtil.EMPTY, resource, directory, manifest);
+        Assert.assertNull(service.getObject("name: " + StringUtil.quote(FILE_PATIENT_NAME), Patient.class));
+
+        // touching the file without changing the content must not index the file again either.
+        File file = new File(directory, "TestariusAmboteIndakasi.txt");
+        Assert.assertTrue(file.setLastModified(file.lastModified() - 60000));
+        service.loadObjects(StringUtil.EMPTY, resource, directory, manifest);
+        Assert.assertNull(service.getObject("name: " + StringUtil.quote(FILE_PATIENT_NAME), Patient.class));
+    }
+
+    /**
+     * @verifies remove objects loaded from deleted files
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource, java.io.File, java.io.File)
+     */
+    @Test
+    public void loadObjects_shouldRemoveObjectsLoadedFromDeletedFiles() throws Exception {
+        File directory = copyCorpus();
+        File manifest = new File(directory.getParentFile(), directory.getName() + ".properties");
+
+        Resource resource = Context.getResource("Patient Resource");
+        service.loadObjects(StringUtil.EMPTY, resource, directory, manifest);
+        Assert.assertNotNull(service.getObject("name: " + StringUtil.quote(FILE_PATIENT_NAME), Patient.class));
+
+        Assert.assertTrue(new File(directory, "TestariusAmboteIndakasi.txt").delete());
+        service.loadObjects(StringUtil.EMPTY, resource, directory, manifest);
+        Assert.assertNull(service.getObject("name: " + StringUtil.quote(FILE_PATIENT_NAME), Patient.class));
+        Assert.assertNotNull(service.getObject("name: " + StringUtil.quote("Testarius Kungu Paul"), Patient.class));
+    }
+
     /**
      * @verifies return object with matching key and type
      * @see RestAssuredService#getObject(String, Class)
@@ -276,4 +491,311 @@ public class RestAssuredServiceTest {
         Patient afterDeletionPatient = service.getObject(StringUtil.quote(REST_PATIENT_UUID), Patient.class);
         Assert.assertNull(afterDeletionPatient);
     }
+
+    /**
+     * @verifies skip download and indexing when the resource is not modified
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource)
+     */
+    @Test
+    public void loadObjects_shouldSkipDownloadAndIndexingWhenTheResourceIsNotModified() throws Exception {
+        final String uuid = UUID.randomUUID().toString();
+        final AtomicInteger downloads = new AtomicInteger();
+        HttpServer server = startServer("/patient", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+                    exchange.close();
+                } else {
+                    downloads.incrementAndGet();
+                    exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                    respond(exchange, patientJson(uuid, "Conditional Patient").getBytes("UTF-8"));
+                }
+            }
+        });
+        Resource resource = createResource("Conditional Patient Resource", getUri(server, "/patient"));
+
+        service.loadObjects(StringUtil.EMPTY, resource);
+        service.loadObjects(StringUtil.EMPTY, resource);
+        Assert.assertEquals(1, downloads.get());
+
+        Patient patient = service.getObject(StringUtil.quote(uuid), Patient.class);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals(uuid, patient.getUuid());
+    }
+
+    /**
+     * @verifies load objects from all resources and search strings
+     * @see RestAssuredService#loadObjects(java.util.Map)
+     */
+    @Test
+    public void loadObjects_shouldLoadObjectsFromAllResourcesAndSearchStrings() throws Exception {
+        final AtomicInteger downloads = new AtomicInteger();
+        HttpServer server = startServer("/patient", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                downloads.incrementAndGet();
+                String path = exchange.getRequestURI().getPath();
+                String uuid = path.substring(path.lastIndexOf('/') + 1);
+                respond(exchange, patientJson(uuid, "Batch Patient").getBytes("UTF-8"));
+            }
+        });
+
+        Map<Resource, List<String>> searchStrings = new HashMap<Resource, List<String>>();
+        for (int i = 0; i < 2; i++) {
+            Resource resource = createResource("Batch Patient Resource " + i, getUri(server, "/patient/"));
+            List<String> uuids = new ArrayList<String>();
+            for (int j = 0; j < 10; j++)
+                uuids.add(UUID.randomUUID().toString());
+            searchStrings.put(resource, uuids);
+        }
+
+        service.loadObjects(searchStrings);
+        Assert.assertEquals(20, downloads.get());
+
+        for (Map.Entry<Resource, List<String>> entry : searchStrings.entrySet()) {
+            for (String uuid : entry.getValue()) {
+                Object patient = service.getObject(StringUtil.quote(uuid), entry.getKey());
+                Assert.assertNotNull(patient);
+                Assert.assertEquals(uuid, ((Patient) patient).getUuid());
+            }
+        }
+    }
+
+    private HttpServer createPagedServer(final int pageCount, final AtomicInteger downloads) throws IOException {
+        return createPagedServer(pageCount, -1, downloads);
+    }
+
+    private HttpServer createPagedServer(final int pageCount, final int lastNextPage, final AtomicInteger downloads)
+            throws IOException {
+        return startServer("/paged", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                downloads.incrementAndGet();
+                // uri: /paged/<prefix>/<page>
+                String[] segments = exchange.getRequestURI().getPath().split("/");
+                String prefix = segments[2];
+                int page = Integer.parseInt(segments[3]);
+                StringBuilder builder = new StringBuilder("{\"results\":[");
+                for (int i = 0; i < 3; i++) {
+                    String uuid = prefix + "-" + page + "-" + i;
+                    if (i > 0)
+                        builder.append(",");
+                    builder.append("{\"uuid\":\"").append(uuid).append("\",")
+                            .append("\"identifiers\":[{\"identifier\":\"").append(uuid).append("\"}],")
+                            .append("\"person\":{\"display\":\"Paged Patient\",")
+                            .append("\"gender\":\"F\",\"age\":30,")
+                            .append("\"birthdate\":\"1982-01-01T00:00:00.000+0300\"}}");
+                }
+                builder.append("],\"links\":[");
+                // the last page links to the last next page, if any, to simulate a server linking back.
+                int nextPage = page + 1 < pageCount ? page + 1 : lastNextPage;
+                if (nextPage >= 0)
+                    builder.append("{\"rel\":\"next\",\"uri\":\"/paged/").append(prefix).append("/")
+                            .append(nextPage).append("\"}");
+                builder.append("]}");
+                respond(exchange, builder.toString().getBytes("UTF-8"));
+            }
+        });
+    }
+
+    private Resource createPagedResource(final String name, final HttpServer server) {
+        final String host = getUri(server, StringUtil.EMPTY);
+        return createResource(name, "$.results", new PagingResolver() {
+            @Override
+            public String resolveNext(final String uri, final String payload) {
+                JSONArray links = JsonPath.read(payload, "$.links");
+                for (Object link : links) {
+                    JSONObject jsonObject = (JSONObject) link;
+                    if ("next".equals(jsonObject.get("rel")))
+                        return host + jsonObject.get("uri");
+                }
+                return null;
+            }
+
+            @Override
+            public String resolve(final String searchString) {
+                return host + "/paged/" + searchString + "/0";
+            }
+
+            @Override
+            public URLConnection authenticate(final URLConnection connection) {
+                return connection;
+            }
+        });
+    }
+
+    /**
+     * @verifies load all pages of a paged resource
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource)
+     */
+    @Test
+    public void loadObjects_shouldLoadAllPagesOfAPagedResource() throws Exception {
+        AtomicInteger downloads = new AtomicInteger();
+        HttpServer server = createPagedServer(4, downloads);
+        Resource resource = createPagedResource("Paged Patient Resource", server);
+        String prefix = UUID.randomUUID().toString();
+        service.loadObjects(prefix, resource);
+        Assert.assertEquals(4, downloads.get());
+
+        for (int page = 0; page < 4; page++) {
+            for (int i = 0; i < 3; i++) {
+                String uuid = prefix + "-" + page + "-" + i;
+                Object patient = service.getObject(StringUtil.quote(uuid), resource);
+                Assert.assertNotNull(patient);
+                Assert.assertEquals(uuid, ((Patient) patient).getUuid());
+            }
+        }
+    }
+
+    /**
+     * @verifies load all pages of paged resources
+     * @see RestAssuredService#loadObjects(java.util.Map)
+     */
+    @Test
+    public void loadObjects_shouldLoadAllPagesOfPagedResources() throws Exception {
+        AtomicInteger downloads = new AtomicInteger();
+        HttpServer server = createPagedServer(3, downloads);
+        Resource resource = createPagedResource("Batch Paged Patient Resource", server);
+        List<String> prefixes = new ArrayList<String>();
+        for (int i = 0; i < 4; i++)
+            prefixes.add(UUID.randomUUID().toString());
+        Map<Resource, List<String>> searchStrings = new HashMap<Resource, List<String>>();
+        searchStrings.put(resource, prefixes);
+
+        service.loadObjects(searchStrings);
+        Assert.assertEquals(12, downloads.get());
+
+        for (String prefix : prefixes) {
+            for (int page = 0; page < 3; page++) {
+                String uuid = prefix + "-" + page + "-0";
+                Object patient = service.getObject(StringUtil.quote(uuid), resource);
+                Assert.assertNotNull(patient);
+                Assert.assertEquals(uuid, ((Patient) patient).getUuid());
+            }
+        }
+    }
+
+    /**
+     * @verifies stop at link to a page which was already downloaded
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource)
+     */
+    @Test(timeout = 10000)
+    public void loadObjects_shouldStopAtLinkToAPageWhichWasAlreadyDownloaded() throws Exception {
+        AtomicInteger downloads = new AtomicInteger();
+        HttpServer server = createPagedServer(3, 1, downloads);
+        Resource resource = createPagedResource("Looping Patient Resource", server);
+        String prefix = UUID.randomUUID().toString();
+        service.loadObjects(prefix, resource);
+        Assert.assertEquals(3, downloads.get());
+        for (int page = 0; page < 3; page++)
+            Assert.assertNotNull(service.getObject(StringUtil.quote(prefix + "-" + page + "-0"), resource));
+    }
+
+    /**
+     * @verifies not follow link to a page which was already downloaded
+     * @see RestAssuredService#loadObjects(java.util.Map)
+     */
+    @Test(timeout = 10000)
+    public void loadObjects_shouldNotFollowLinkToAPageWhichWasAlreadyDownloaded() throws Exception {
+        AtomicInteger downloads = new AtomicInteger();
+        HttpServer server = createPagedServer(3, 2, downloads);
+        Resource resource = createPagedResource("Batch Looping Patient Resource", server);
+        Map<Resource, List<String>> searchStrings = new HashMap<Resource, List<String>>();
+        searchStrings.put(resource, Arrays.asList(UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+
+        service.loadObjects(searchStrings);
+        Assert.assertEquals(6, downloads.get());
+    }
+
+    /**
+     * @verifies request and decode compressed payload
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource)
+     */
+    @Test
+    public void loadObjects_shouldRequestAndDecodeCompressedPayload() throws Exception {
+        final String uuid = UUID.randomUUID().toString();
+        final String json = patientJson(uuid, "Compressed Patient");
+        final AtomicInteger compressed = new AtomicInteger();
+        HttpServer server = startServer("/patient", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (encoding != null && encoding.contains("gzip")) {
+                    compressed.incrementAndGet();
+                    GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream);
+                    gzipStream.write(json.getBytes("UTF-8"));
+                    gzipStream.close();
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                } else {
+                    outputStream.write(json.getBytes("UTF-8"));
+                }
+                respond(exchange, outputStream.toByteArray());
+            }
+        });
+        Resource resource = createResource("Compressed Patient Resource", getUri(server, "/patient"));
+
+        service.loadObjects(StringUtil.EMPTY, resource);
+        Assert.assertEquals(1, compressed.get());
+
+        Patient patient = service.getObject(StringUtil.quote(uuid), Patient.class);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals(uuid, patient.getUuid());
+    }
+
+    /**
+     * @verifies load gzip compressed files
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource, java.io.File)
+     */
+    @Test
+    public void loadObjects_shouldLoadGzipCompressedFiles() throws Exception {
+        URL corpus = RestAssuredService.class.getResource("sample/corpus/TestariusKunguPaul.txt");
+        File directory = new File(System.getProperty("java.io.tmpdir"), "corpus-" + UUID.randomUUID());
+        Assert.assertTrue(directory.mkdirs());
+
+        File file = new File(directory, "TestariusKunguPaul.json.gz");
+        InputStream inputStream = new FileInputStream(new File(corpus.getPath()));
+        OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(file));
+        try {
+            byte[] buffer = new byte[1024];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1)
+                outputStream.write(buffer, 0, count);
+        } finally {
+            inputStream.close();
+            outputStream.close();
+        }
+
+        Resource resource = Context.getResource("Patient Resource");
+        Assert.assertNotNull(resource);
+        service.loadObjects(StringUtil.EMPTY, resource, directory);
+
+        Patient patient = service.getObject("name: " + StringUtil.quote("Testarius Kungu Paul"), Patient.class);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals(Patient.class, patient.getClass());
+    }
+
+    /**
+     * @verifies reuse the connection between loads
+     * @see RestAssuredService#loadObjects(String, com.mclinic.search.api.resource.Resource)
+     */
+    @Test
+    public void loadObjects_shouldReuseTheConnectionBetweenLoads() throws Exception {
+        final String uuid = UUID.randomUUID().toString();
+        final Set<Integer> ports = Collections.synchronizedSet(new HashSet<Integer>());
+        HttpServer server = startServer("/patient", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                ports.add(exchange.getRemoteAddress().getPort());
+                respond(exchange, patientJson(uuid, "Persistent Patient").getBytes("UTF-8"));
+            }
+        });
+        Resource resource = createResource("Persistent Patient Resource", getUri(server, "/patient"));
+
+        for (int i = 0; i < 3; i++)
+            service.loadObjects(StringUtil.EMPTY, resource);
+        Assert.assertEquals(1, ports.size());
+        Assert.assertNotNull(service.getObject(StringUtil.quote(uuid), Patient.class));
+    }
 }
@@ -0,0 +1,123 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.json;
+
+import com.jayway.jsonpath.JsonPath;
+import com.mclinic.search.api.resource.SearchableField;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class JsonFieldExtractorTest {
+
+    private static final String PATIENT_JSON = "{" +
+            "\"uuid\":\"dd55e586-1691-11df-97a5-7038c432aabf\"," +
+            "\"identifiers\":[" +
+            "{\"identifier\":\"363MO-5\",\"identifierType\":{\"display\":\"Old AMPATH Medical Record Number\"}}," +
+            "{\"identifier\":\"AMRS-7\",\"identifierType\":{\"display\":\"AMRS Universal ID\"}}" +
+            "]," +
+            "\"person\":{\"display\":\"Testarius Ambote Indakasi\",\"gender\":\"M\",\"age\":42}" +
+            "}";
+
+    private Object[] extract(final String json, final SearchableField... searchableFields) {
+        JsonFieldExtractor extractor = new JsonFieldExtractor(Arrays.asList(searchableFields));
+        return extractor.extract(JsonPath.compile("$").read(json));
+    }
+
+    /**
+     * @verifies read the values of nested fields
+     * @see JsonFieldExtractor#extract(Object)
+     */
+    @Test
+    public void extract_shouldReadTheValuesOfNestedFields() throws Exception {
+        Object[] values = extract(PATIENT_JSON,
+                new SearchableField("uuid", "$.uuid", Boolean.TRUE),
+                new SearchableField("name", "$.person.display", Boolean.FALSE),
+                new SearchableField("gender", "$['person']['gender']", Boolean.FALSE),
+                new SearchableField("age", "$.person.age", Boolean.FALSE));
+        Assert.assertEquals("dd55e586-1691-11df-97a5-7038c432aabf", values[0]);
+        Assert.assertEquals("Testarius Ambote Indakasi", values[1]);
+        Assert.assertEquals("M", values[2]);
+        Assert.assertEquals(42, ((Number) values[3]).intValue());
+    }
+
+    /**
+     * @verifies read the values of array elements
+     * @see JsonFieldExtractor#extract(Object)
+     */
+    @Test
+    public void extract_shouldReadTheValuesOfArrayElements() throws Exception {
+        Object[] values = extract(PATIENT_JSON,
+                new SearchableField("identifier", "$.identifiers[0].identifier", Boolean.FALSE),
+                new SearchableField("type", "$.identifiers[1].identifierType.display", Boolean.FALSE),
+                new SearchableField("second", "$.identifiers[1].identifier", Boolean.FALSE));
+        Assert.assertEquals("363MO-5", values[0]);
+        Assert.assertEquals("AMRS Universal ID", values[1]);
+        Assert.assertEquals("AMRS-7", values[2]);
+    }
+
+    /**
+     * @verifies evaluate unsupported expressions using their compiled path
+     * @see JsonFieldExtractor#extract(Object)
+     */
+    @Test
+    public void extract_shouldEvaluateUnsupportedExpressionsUsingTheirCompiledPath() throws Exception {
+        SearchableField wildcard = new SearchableField("identifiers", "$.identifiers[*].identifier", Boolean.FALSE);
+        SearchableField filter = new SearchableField("amrs",
+                "$.identifiers[?(@.identifier == 'AMRS-7')].identifierType.display", Boolean.FALSE);
+        Object[] values = extract(PATIENT_JSON, new SearchableField("uuid", "$.uuid", Boolean.TRUE), wildcard, filter);
+        Object jsonObject = JsonPath.compile("$").read(PATIENT_JSON);
+        Assert.assertEquals("dd55e586-1691-11df-97a5-7038c432aabf", values[0]);
+        Assert.assertEquals(wildcard.getPath().read(jsonObject), values[1]);
+        Assert.assertEquals(filter.getPath().read(jsonObject), values[2]);
+        Assert.assertEquals(Arrays.asList("363MO-5", "AMRS-7"), values[1]);
+    }
+
+    /**
+     * @verifies return null for fields without value
+     * @see JsonFieldExtractor#extract(Object)
+     */
+    @Test
+    public void extract_shouldReturnNullForFieldsWithoutValue() throws Exception {
+        Object[] values = extract(PATIENT_JSON,
+                new SearchableField("birthdate", "$.person.birthdate", Boolean.FALSE),
+                new SearchableField("address", "$.person.address.city", Boolean.FALSE),
+                new SearchableField("identifier", "$.identifiers[2].identifier", Boolean.FALSE),
+                new SearchableField("middle", "$.person.display.middle", Boolean.FALSE),
+                new SearchableField("name", "$.person.display", Boolean.FALSE));
+        Assert.assertNull(values[0]);
+        Assert.assertNull(values[1]);
+        Assert.assertNull(values[2]);
+        Assert.assertNull(values[3]);
+        Assert.assertEquals("Testarius Ambote Indakasi", values[4]);
+    }
+
+    /**
+     * @verifies return the searchable fields in the order of the values
+     * @see JsonFieldExtractor#getSearchableFields()
+     */
+    @Test
+    public void getSearchableFields_shouldReturnTheSearchableFieldsInTheOrderOfTheValues() throws Exception {
+        List<SearchableField> searchableFields = Arrays.asList(
+                new SearchableField("name", "$.person.display", Boolean.FALSE),
+                new SearchableField("uuid", "$.uuid", Boolean.TRUE));
+        JsonFieldExtractor extractor = new JsonFieldExtractor(searchableFields);
+        Assert.assertEquals(searchableFields, extractor.getSearchableFields());
+        Object[] values = extractor.extract(JsonPath.compile("$").read(PATIENT_JSON));
+        Assert.assertEquals("Testarius Ambote Indakasi", values[0]);
+        Assert.assertEquals("dd55e586-1691-11df-97a5-7038c432aabf", values[1]);
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.json;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class JsonStreamReaderTest {
+
+    private List<String> readElements(final JsonStreamReader reader) throws IOException {
+        List<String> elements = new ArrayList<String>();
+        String element;
+        while ((element = reader.next()) != null)
+            elements.add(element);
+        return elements;
+    }
+
+    /**
+     * @verifies read strings with escaped quotes and unicode escapes
+     * @see JsonStreamReader#next()
+     */
+    @Test
+    public void next_shouldReadStringsWithEscapedQuotesAndUnicodeEscapes() throws Exception {
+        String first = "{\"display\":\"Testarius \\\"Ambote\\\" ]} Indakasi\"}";
+        String second = "{\"display\":\"Jos\\u00e9 \\\\ \\u005b\"}";
+        String payload = "{\"results\":[" + first + "," + second + "]}";
+        JsonStreamReader reader = new JsonStreamReader(new StringReader(payload));
+        Assert.assertTrue(reader.seek("$.results"));
+
+        List<String> elements = readElements(reader);
+        Assert.assertEquals(2, elements.size());
+        Assert.assertEquals(first, elements.get(0));
+        Assert.assertEquals(second, elements.get(1));
+        Assert.assertEquals("Testarius \"Ambote\" ]} Indakasi", JsonPath.read(elements.get(0), "$.display"));
+        Assert.assertEquals("Jos\u00e9 \\ [", JsonPath.read(elements.get(1), "$.display"));
+    }
+
+    /**
+     * @verifies read elements with nested arrays and objects
+     * @see JsonStreamReader#next()
+     */
+    @Test
+    public void next_shouldReadElementsWithNestedArraysAndObjects() throws Exception {
+        String first = "{\"identifiers\":[{\"identifier\":\"363MO-5\",\"types\":[[1,2],{}]}],\"person\":{\"age\":42}}";
+        String second = "[1,[2,[3]],{\"a\":{\"b\":[]}}]";
+        JsonStreamReader reader = new JsonStreamReader(new StringReader("[ " + first + " ,\n " + second + " , 7 ]"));
+        Assert.assertTrue(reader.seek("$"));
+        Assert.assertTrue(reader.isArray());
+
+        List<String> elements = readElements(reader);
+        Assert.assertEquals(3, elements.size());
+        Assert.assertEquals(first, elements.get(0));
+        Assert.assertEquals(second, elements.get(1));
+        Assert.assertEquals("7", elements.get(2));
+    }
+
+    /**
+     * @verifies skip fields before the root node
+     * @see JsonStreamReader#seek(String)
+     */
+    @Test
+    public void seek_shouldSkipFieldsBeforeTheRootNode() throws Exception {
+        String payload = "{" +
+                "\"links\":[{\"rel\":\"next\",\"uri\":\"http://localhost/ws?q=\\\"results\\\"\"}]," +
+                "\"count\":2,\"active\":true,\"empty\":null," +
+                "\"page\":{\"results\":[\"not this one\"]}," +
+                "\"results\":[{\"uuid\":\"first\"},{\"uuid\":\"second\"}]," +
+                "\"after\":{}" +
+                "}";
+        JsonStreamReader reader = new JsonStreamReader(new StringReader(payload));
+        Assert.assertTrue(reader.seek("$.results"));
+        Assert.assertTrue(reader.isArray());
+
+        List<String> elements = readElements(reader);
+        Assert.assertEquals(2, elements.size());
+        Assert.assertEquals("{\"uuid\":\"first\"}", elements.get(0));
+        Assert.assertEquals("{\"uuid\":\"second\"}", elements.get(1));
+    }
+
+    /**
+     * @verifies return false when the root node is missing
+     * @see JsonStreamReader#seek(String)
+     */
+    @Test
+    public void seek_shouldReturnFalseWhenTheRootNodeIsMissing() throws Exception {
+        JsonStreamReader reader = new JsonStreamReader(new StringReader("{\"page\":{\"results\":[{\"uuid\":\"a\"}]}}"));
+        Assert.assertFalse(reader.seek("$.results"));
+        Assert.assertNull(reader.next());
+
+        reader = new JsonStreamReader(new StringReader("[{\"results\":[]}]"));
+        Assert.assertFalse(reader.seek("$.results"));
+        Assert.assertNull(reader.next());
+
+        reader = new JsonStreamReader(new StringReader(""));
+        Assert.assertFalse(reader.seek("$"));
+        Assert.assertNull(reader.next());
+    }
+
+    /**
+     * @verifies return the root object as the only element
+     * @see JsonStreamReader#next()
+     */
+    @Test
+    public void next_shouldReturnTheRootObjectAsTheOnlyElement() throws Exception {
+        String patient = "{\"uuid\":\"dd55e586\",\"identifiers\":[{\"identifier\":\"363MO-5\"}]}";
+        JsonStreamReader reader = new JsonStreamReader(new StringReader("{\"patient\":" + patient + "}"));
+        Assert.assertTrue(reader.seek("$.patient"));
+        Assert.assertFalse(reader.isArray());
+
+        List<String> elements = readElements(reader);
+        Assert.assertEquals(1, elements.size());
+        Assert.assertEquals(patient, elements.get(0));
+        Map<?, ?> json = JsonPath.read(elements.get(0), "$");
+        Assert.assertEquals("dd55e586", json.get("uuid"));
+    }
+
+    /**
+     * @verifies throw IOException when the payload is truncated
+     * @see JsonStreamReader#next()
+     */
+    @Test
+    public void next_shouldThrowIOExceptionWhenThePayloadIsTruncated() throws Exception {
+        String[] payloads = {
+                "{\"results\":[{\"uuid\":\"first\"},{\"uuid\":\"sec",
+                "{\"results\":[{\"uuid\":\"first\"},{\"uuid\":\"second\"}",
+                "{\"results\":[{\"uuid\":\"first\"},{\"uuid\":",
+                "{\"results\":[{\"uuid\":\"first\"},"
+        };
+        for (String payload : payloads) {
+            JsonStreamReader reader = new JsonStreamReader(new StringReader(payload));
+            Assert.assertTrue(reader.seek("$.results"));
+            Assert.assertEquals("{\"uuid\":\"first\"}", reader.next());
+            try {
+                reader.next();
+                reader.next();
+                Assert.fail("Truncated payload must be reported: " + payload);
+            } catch (IOException e) {
+                // expected, the payload ends inside the array.
+            }
+        }
+    }
+}
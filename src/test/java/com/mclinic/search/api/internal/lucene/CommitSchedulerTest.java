@@ -0,0 +1,137 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.lucene;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CommitSchedulerTest {
+
+    private static final long LONG_INTERVAL = 60 * 60 * 1000L;
+
+    private final AtomicInteger commits = new AtomicInteger();
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private CommitScheduler scheduler;
+
+    /**
+     * Create the scheduler for an indexer which only count the commits. The first <code>failureCount</code> commits
+     * will fail with runtime exception.
+     */
+    private CommitScheduler createScheduler(final Long interval, final Integer size, final int failureCount) {
+        Indexer indexer = (Indexer) Proxy.newProxyInstance(Indexer.class.getClassLoader(),
+                new Class[]{Indexer.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                if (!method.getName().equals("commit"))
+                    throw new UnsupportedOperationException(method.getName());
+                if (attempts.incrementAndGet() <= failureCount)
+                    throw new IllegalStateException("Commit failure " + attempts.get());
+                long request = scheduler.getRequested();
+                commits.incrementAndGet();
+                scheduler.committed(request);
+                return null;
+            }
+        });
+        scheduler = new CommitScheduler(indexer, interval, size);
+        return scheduler;
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        if (scheduler != null)
+            scheduler.stop();
+    }
+
+    /**
+     * @verifies commit pending writes when the interval elapsed
+     * @see CommitScheduler#schedule()
+     */
+    @Test(timeout = 10000)
+    public void schedule_shouldCommitPendingWritesWhenTheIntervalElapsed() throws Exception {
+        createScheduler(50L, null, 0);
+        scheduler.schedule();
+        long request = scheduler.schedule();
+        scheduler.await(request);
+        Assert.assertEquals(1, commits.get());
+
+        // nothing is committed when there's no pending write.
+        Thread.sleep(200);
+        Assert.assertEquals(1, commits.get());
+
+        scheduler.await(scheduler.schedule());
+        Assert.assertEquals(2, commits.get());
+    }
+
+    /**
+     * @verifies commit pending writes when the number of pending writes reach the size
+     * @see CommitScheduler#schedule()
+     */
+    @Test(timeout = 10000)
+    public void schedule_shouldCommitPendingWritesWhenTheNumberOfPendingWritesReachTheSize() throws Exception {
+        createScheduler(LONG_INTERVAL, 3, 0);
+        scheduler.schedule();
+        scheduler.schedule();
+        Thread.sleep(200);
+        Assert.assertEquals(0, commits.get());
+
+        long request = scheduler.schedule();
+        scheduler.await(request);
+        Assert.assertEquals(1, commits.get());
+    }
+
+    /**
+     * @verifies throw IOException when the commit failed with runtime exception
+     * @see CommitScheduler#await(long)
+     */
+    @Test(timeout = 10000)
+    public void await_shouldThrowIOExceptionWhenTheCommitFailedWithRuntimeException() throws Exception {
+        createScheduler(LONG_INTERVAL, 1, 1);
+        try {
+            scheduler.await(scheduler.schedule());
+            Assert.fail("Failed commit must be reported to the waiting caller.");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertEquals(0, commits.get());
+    }
+
+    /**
+     * @verifies keep committing after the commit failed with runtime exception
+     * @see CommitScheduler#await(long)
+     */
+    @Test(timeout = 10000)
+    public void await_shouldKeepCommittingAfterTheCommitFailedWithRuntimeException() throws Exception {
+        createScheduler(50L, null, 1);
+        long request = scheduler.schedule();
+        try {
+            scheduler.await(request);
+        } catch (IOException e) {
+            // the first commit failed, the next run of the periodic commit will commit the write.
+        }
+        while (commits.get() == 0)
+            Thread.sleep(10);
+        scheduler.await(request);
+        Assert.assertEquals(2, attempts.get());
+        Assert.assertEquals(1, commits.get());
+    }
+}
@@ -0,0 +1,836 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package com.mclinic.search.api.internal.lucene;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.name.Names;
+import com.mclinic.search.api.Context;
+import com.mclinic.search.api.RestAssuredService;
+import com.mclinic.search.api.exception.SearchException;
+import com.mclinic.search.api.internal.provider.DirectoryProvider;
+import com.mclinic.search.api.logger.LogLevel;
+import com.mclinic.search.api.query.QueryBuilder;
+import com.mclinic.search.api.resource.Resource;
+import com.mclinic.search.api.result.Page;
+import com.mclinic.search.api.result.ResultIterator;
+import com.mclinic.search.api.result.ResultList;
+import com.mclinic.search.api.sample.algorithm.CohortAlgorithm;
+import com.mclinic.search.api.sample.algorithm.CohortMemberAlgorithm;
+import com.mclinic.search.api.sample.algorithm.ObservationAlgorithm;
+import com.mclinic.search.api.sample.algorithm.PatientAlgorithm;
+import com.mclinic.search.api.sample.domain.Cohort;
+import com.mclinic.search.api.sample.domain.Observation;
+import com.mclinic.search.api.sample.domain.Patient;
+import com.mclinic.search.api.sample.resolver.CohortMemberResolver;
+import com.mclinic.search.api.sample.resolver.CohortResolver;
+import com.mclinic.search.api.sample.resolver.ObservationResolver;
+import com.mclinic.search.api.sample.resolver.PatientResolver;
+import com.mclinic.search.api.util.StringUtil;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.util.Version;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class DefaultIndexerTest {
+
+    private static final int THREAD_COUNT = 8;
+
+    private static final int OBJECT_PER_THREAD = 25;
+
+    private static final int PAGED_OBJECT_COUNT = 45;
+
+    private File directory;
+
+    private Indexer indexer;
+
+    private Resource resource;
+
+    @Before
+    public void prepare() throws Exception {
+        directory = new File(System.getProperty("java.io.tmpdir"), "indexer-" + UUID.randomUUID());
+        initialize(null, null, null, null, null);
+    }
+
+    private void initialize(final Long commitInterval, final String directoryType, final Boolean jsonCompressed,
+                            final Integer objectCacheSize, final Integer queryCacheSize) throws Exception {
+        Context.initialize(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(String.class).annotatedWith(Names.named("configuration.lucene.directory"))
+                        .toInstance(directory.getAbsolutePath());
+                bind(String.class).annotatedWith(Names.named("configuration.lucene.document.key")).toInstance("uuid");
+                if (commitInterval != null)
+                    bind(Long.class).annotatedWith(Names.named("configuration.lucene.commit.interval"))
+                            .toInstance(commitInterval);
+                if (directoryType != null)
+                    bind(String.class).annotatedWith(Names.named("configuration.lucene.directory.type"))
+                            .toInstance(directoryType);
+                if (jsonCompressed != null)
+                    bind(Boolean.class).annotatedWith(Names.named("configuration.lucene.json.compressed"))
+                            .toInstance(jsonCompressed);
+                if (objectCacheSize != null)
+                    bind(Integer.class).annotatedWith(Names.named("configuration.lucene.object.cache.size"))
+                            .toInstance(objectCacheSize);
+                if (queryCacheSize != null)
+                    bind(Integer.class).annotatedWith(Names.named("configuration.lucene.query.cache.size"))
+                            .toInstance(queryCacheSize);
+                bind(LogLevel.class).toInstance(LogLevel.INFO);
+            }
+        });
+        Context.registerAlgorithm(PatientAlgorithm.class, CohortAlgorithm.class, CohortMemberAlgorithm.class,
+                ObservationAlgorithm.class);
+        Context.registerResolver(PatientResolver.class, CohortResolver.class, CohortMemberResolver.class,
+                ObservationResolver.class);
+        Context.registerObject(Patient.class, Cohort.class, Observation.class);
+
+        URL j2l = RestAssuredService.class.getResource("sample/j2l");
+        Context.registerResources(new File(j2l.getPath()));
+
+        indexer = Context.getInstance(Indexer.class);
+        resource = Context.getResource("Patient Resource");
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        indexer.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files)
+                file.delete();
+        }
+        directory.delete();
+    }
+
+    private Patient createPatient(final String uuid, final String name) {
+        return createPatient(uuid, name, 30, "1982-01-01T00:00:00.000+0300");
+    }
+
+    private Patient createPatient(final String uuid, final String name, final int age, final String birthdate) {
+        String json = "{" +
+                "\"uuid\":\"" + uuid + "\"," +
+                "\"identifiers\":[{\"identifier\":\"" + uuid.substring(0, 8) + "\"}]," +
+                "\"person\":{\"display\":\"" + name + "\",\"gender\":\"F\",\"age\":" + age + "," +
+                "\"birthdate\":\"" + birthdate + "\"}" +
+                "}";
+        return new PatientAlgorithm().deserialize(json);
+    }
+
+    private String createPatientJson(final String uuid, final String name) {
+        return "{" +
+                "\"uuid\":\"" + uuid + "\"," +
+                "\"identifiers\":[{\"identifier\":\"" + uuid.substring(0, 8) + "\"}]," +
+                "\"person\":{\"display\":\"" + name + "\",\"gender\":\"F\",\"age\":30}" +
+                "}";
+    }
+
+    /**
+     * Write the patient the same way as the index written before the unique key was introduced.
+     */
+    private void writeKeylessPatient(final String uuid, final String name) throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(Version.LUCENE_36, new StandardAnalyzer(Version.LUCENE_36));
+        IndexWriter writer = new IndexWriter(NIOFSDirectory.open(directory), config);
+        try {
+            Document document = new Document();
+            document.add(new Field("_json", createPatientJson(uuid, name), Field.Store.YES, Field.Index.NO));
+            document.add(new Field("_uuid", UUID.randomUUID().toString(), Field.Store.YES,
+                    Field.Index.ANALYZED_NO_NORMS));
+            document.add(new Field("_class", Patient.class.getName(), Field.Store.YES, Field.Index.ANALYZED_NO_NORMS));
+            document.add(new Field("_resource", resource.getName(), Field.Store.YES, Field.Index.ANALYZED_NO_NORMS));
+            document.add(new Field("uuid", uuid, Field.Store.YES, Field.Index.ANALYZED_NO_NORMS));
+            document.add(new Field("name", name, Field.Store.YES, Field.Index.ANALYZED_NO_NORMS));
+            writer.addDocument(document);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void execute(final List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Void>> futures = executor.invokeAll(tasks);
+            // rethrow any exception happened inside the worker threads
+            for (Future<Void> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @verifies not lose objects when called concurrently
+     * @see DefaultIndexer#createObject(Object, com.mclinic.search.api.resource.Resource)
+     */
+    @Test
+    public void createObject_shouldNotLoseObjectsWhenCalledConcurrently() throws Exception {
+        final List<String> uuids = new ArrayList<String>();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            final List<Patient> patients = new ArrayList<Patient>();
+            for (int j = 0; j < OBJECT_PER_THREAD; j++) {
+                String uuid = UUID.randomUUID().toString();
+                patients.add(createPatient(uuid, "Stress Patient " + i + " " + j));
+                uuids.add(uuid);
+            }
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (Patient patient : patients) {
+                        indexer.createObject(patient, resource);
+                        // interleave reads with the writes from the other threads
+                        indexer.getObjects("name:Stress*", Patient.class);
+                    }
+                    return null;
+                }
+            });
+        }
+        execute(tasks);
+
+        for (String uuid : uuids) {
+            Patient patient = indexer.getObject(StringUtil.quote(uuid), Patient.class);
+            Assert.assertNotNull(patient);
+            Assert.assertEquals(uuid, patient.getUuid());
+        }
+    }
+
+    /**
+     * @verifies not leave duplicate objects when called concurrently
+     * @see DefaultIndexer#updateObject(Object, com.mclinic.search.api.resource.Resource)
+     */
+    @Test
+    public void updateObject_shouldNotLeaveDuplicateObjectsWhenCalledConcurrently() throws Exception {
+        final String uuid = UUID.randomUUID().toString();
+        final Patient patient = createPatient(uuid, "Concurrent Update Patient");
+        indexer.createObject(patient, resource);
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int j = 0; j < OBJECT_PER_THREAD; j++) {
+                        indexer.updateObject(patient, resource);
+                        Assert.assertNotNull(indexer.getObject(StringUtil.quote(uuid), Patient.class));
+                    }
+                    return null;
+                }
+            });
+        }
+        execute(tasks);
+
+        List<Patient> patients = indexer.getObjects("name:Concurrent*", Patient.class);
+        Assert.assertEquals(1, patients.size());
+        Assert.assertEquals(uuid, patients.get(0).getUuid());
+    }
+
+    /**
+     * @verifies replace object with the same unique value regardless of its case
+     * @see DefaultIndexer#updateObject(Object, com.mclinic.search.api.resource.Resource)
+     */
+    @Test
+    public void updateObject_shouldReplaceObjectWithTheSameUniqueValueRegardlessOfItsCase() throws Exception {
+        String uuid = UUID.randomUUID().toString();
+        indexer.createObject(createPatient(uuid, "Mixed Case Patient"), resource);
+        indexer.updateObject(createPatient(uuid, "mixed case PATIENT", 31, "1981-01-01T00:00:00.000+0300"), resource);
+
+        List<Patient> patients = indexer.getObjects("name:Mixed*", Patient.class);
+        Assert.assertEquals(1, patients.size());
+        Assert.assertEquals("mixed case PATIENT", patients.get(0).getName());
+        Assert.assertNotNull(indexer.getObjectByKey("MIXED CASE patient", Patient.class));
+    }
+
+    /**
+     * @verifies replace object written without the unique key
+     * @see DefaultIndexer#updateObject(Object, com.mclinic.search.api.resource.Resource)
+     */
+    @Test
+    public void updateObject_shouldReplaceObjectWrittenWithoutTheUniqueKey() throws Exception {
+        indexer.close();
+        String uuid = UUID.randomUUID().toString();
+        writeKeylessPatient(uuid, "Keyless Patient");
+        initialize(null, null, null, null, null);
+
+        Patient patient = indexer.getObjectByKey("Keyless Patient", Patient.class);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals(uuid, patient.getUuid());
+
+        indexer.updateObject(createPatient(uuid, "keyless patient", 31, "1981-01-01T00:00:00.000+0300"), resource);
+        indexer.updateObject(createPatient(uuid, "Keyless Patient", 32, "1980-01-01T00:00:00.000+0300"), resource);
+        List<Patient> patients = indexer.getObjects("name:Keyless*", Patient.class);
+        Assert.assertEquals(1, patients.size());
+        Assert.assertTrue(patients.get(0).getJson().contains("\"age\":32"));
+
+        indexer.deleteObject(patients.get(0), resource);
+        Assert.assertTrue(indexer.getObjects("name:Keyless*", Patient.class).isEmpty());
+    }
+
+    /**
+     * @verifies reject object without value for the unique field
+     * @see DefaultIndexer#createObject(Object, com.mclinic.search.api.resource.Resource)
+     */
+    @Test(expected = SearchException.class)
+    public void createObject_shouldRejectObjectWithoutValueForTheUniqueField() throws Exception {
+        String json = "{\"uuid\":\"" + UUID.randomUUID() + "\",\"identifiers\":[{\"identifier\":\"Unnamed\"}]," +
+                "\"person\":{\"display\":null,\"gender\":\"F\",\"age\":30}}";
+        indexer.createObject(new PatientAlgorithm().deserialize(json), resource);
+    }
+
+    /**
+     * @verifies replace object written without the unique key after the index is reopened
+     * @see DefaultIndexer#updateObject(Object, com.mclinic.search.api.resource.Resource)
+     */
+    @Test
+    public void updateObject_shouldReplaceObjectWrittenWithoutTheUniqueKeyAfterTheIndexIsReopened() throws Exception {
+        // the update checks whether the index contains documents without the unique key.
+        indexer.updateObject(createPatient(UUID.randomUUID().toString(), "Keyed Patient"), resource);
+        indexer.close();
+        String uuid = UUID.randomUUID().toString();
+        writeKeylessPatient(uuid, "Reopened Patient");
+
+        indexer.updateObject(createPatient(uuid, "Reopened Patient", 32, "1980-01-01T00:00:00.000+0300"), resource);
+        List<Patient> patients = indexer.getObjects("name:Reopened*", Patient.class);
+        Assert.assertEquals(1, patients.size());
+        Assert.assertTrue(patients.get(0).getJson().contains("\"age\":32"));
+    }
+
+    /**
+     * @verifies remove documents of the source when the payload is truncated
+     * @see DefaultIndexer#loadObjects(com.mclinic.search.api.resource.Resource, java.io.Reader, String)
+     */
+    @Test
+    public void loadObjects_shouldRemoveDocumentsOfTheSourceWhenThePayloadIsTruncated() throws Exception {
+        String source = "truncated.json";
+        String payload = "[" + createPatientJson(UUID.randomUUID().toString(), "Truncated Patient One") + "]";
+        indexer.loadObjects(resource, new StringReader(payload), source);
+        indexer.commit();
+        Assert.assertEquals(1, indexer.getObjects("name:Truncated*", Patient.class).size());
+
+        payload = "[" + createPatientJson(UUID.randomUUID().toString(), "Truncated Patient Two") + "," +
+                createPatientJson(UUID.randomUUID().toString(), "Truncated Patient Three") + ",{\"uuid\":\"";
+        try {
+            indexer.loadObjects(resource, new StringReader(payload), source);
+            Assert.fail("Truncated payload must not be loaded.");
+        } catch (IOException e) {
+            // expected, the payload ends inside the array.
+        }
+        indexer.commit();
+        Assert.assertTrue(indexer.getObjects("name:Truncated*", Patient.class).isEmpty());
+    }
+
+    /**
+     * @verifies remove objects loaded from the source
+     * @see DefaultIndexer#deleteObjects(com.mclinic.search.api.resource.Resource, String)
+     */
+    @Test
+    public void deleteObjects_shouldRemoveObjectsLoadedFromTheSource() throws Exception {
+        String payload = "[" + createPatientJson(UUID.randomUUID().toString(), "Sourced Patient One") + "]";
+        indexer.loadObjects(resource, new StringReader(payload), "sourced.json");
+        payload = "[" + createPatientJson(UUID.randomUUID().toString(), "Sourced Patient Two") + "]";
+        indexer.loadObjects(resource, new StringReader(payload), "other.json");
+        indexer.commit();
+
+        indexer.deleteObjects(resource, "sourced.json");
+        indexer.commit();
+        List<Patient> patients = indexer.getObjects("name:Sourced*", Patient.class);
+        Assert.assertEquals(1, patients.size());
+        Assert.assertEquals("Sourced Patient Two", patients.get(0).getName());
+    }
+
+    /**
+     * @verifies not remove anything when the source is null
+     * @see DefaultIndexer#deleteObjects(com.mclinic.search.api.resource.Resource, String)
+     */
+    @Test
+    public void deleteObjects_shouldNotRemoveAnythingWhenTheSourceIsNull() throws Exception {
+        String payload = "[" + createPatientJson(UUID.randomUUID().toString(), "Unsourced Patient") + "]";
+        indexer.loadObjects(resource, new StringReader(payload), null);
+        indexer.commit();
+
+        indexer.deleteObjects(resource, null);
+        indexer.commit();
+        Assert.assertEquals(1, indexer.getObjects("name:Unsourced*", Patient.class).size());
+    }
+
+    /**
+     * @verifies index elements before the payload is fully read
+     * @see DefaultIndexer#loadObjects(com.mclinic.search.api.resource.Resource, java.io.Reader, String)
+     */
+    @Test
+    public void loadObjects_shouldIndexElementsBeforeThePayloadIsFullyRead() throws Exception {
+        String payload = "[" + createPatientJson(UUID.randomUUID().toString(), "Streamed Patient One") + "," +
+                createPatientJson(UUID.randomUUID().toString(), "Streamed Patient Two") + ",";
+        // the reader fails instead of ending the payload, so only elements indexed while reading can be found.
+        Reader reader = new FilterReader(new StringReader(payload)) {
+            @Override
+            public int read(final char[] buffer, final int offset, final int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count < 0)
+                    throw new IOException("Connection reset.");
+                return count;
+            }
+        };
+        try {
+            indexer.loadObjects(resource, reader, null);
+            Assert.fail("Payload failing to be read must not be loaded completely.");
+        } catch (IOException e) {
+            // expected, the reader failed after the second element.
+        }
+        indexer.commit();
+        Assert.assertEquals(2, indexer.getObjects("name:Streamed*", Patient.class).size());
+    }
+
+    /**
+     * @verifies wait until changes from the calling thread are committed
+     * @see DefaultIndexer#awaitCommit()
+     */
+    @Test
+    public void awaitCommit_shouldWaitUntilChangesFromTheCallingThreadAreCommitted() throws Exception {
+        indexer.close();
+        initialize(60000L, null, null, null, null);
+
+        String uuid = UUID.randomUUID().toString();
+        Assert.assertNull(indexer.getObject(StringUtil.quote(uuid), Patient.class));
+        indexer.createObject(createPatient(uuid, "Group Commit Patient"), resource);
+        // the commit interval is long, the change will not be visible until it's committed
+        Assert.assertNull(indexer.getObject(StringUtil.quote(uuid), Patient.class));
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            final Patient patient = createPatient(UUID.randomUUID().toString(), "Group Commit Patient " + i);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    indexer.createObject(patient, resource);
+                    indexer.awaitCommit();
+                    Assert.assertNotNull(indexer.getObject(StringUtil.quote(patient.getUuid()), Patient.class));
+                    return null;
+                }
+            });
+        }
+        // waiting threads will be released by the explicit commit of the pending changes
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (Callable<Void> task : tasks)
+                futures.add(executor.submit(task));
+            for (Future<Void> future : futures) {
+                while (!future.isDone()) {
+                    Thread.sleep(100);
+                    indexer.commit();
+                }
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertNotNull(indexer.getObject(StringUtil.quote(uuid), Patient.class));
+    }
+
+    private Set<String> createPagedPatients() throws Exception {
+        Set<String> uuids = new HashSet<String>();
+        for (int i = 0; i < PAGED_OBJECT_COUNT; i++) {
+            String uuid = UUID.randomUUID().toString();
+            indexer.createObject(createPatient(uuid, "Paged Patient " + i), resource);
+            uuids.add(uuid);
+        }
+        return uuids;
+    }
+
+    /**
+     * @verifies return all object matching the search search string and class
+     * @see DefaultIndexer#getObjects(String, Class)
+     */
+    @Test
+    public void getObjects_shouldReturnAllObjectMatchingTheSearchSearchStringAndClass() throws Exception {
+        Set<String> uuids = createPagedPatients();
+        List<Patient> patients = indexer.getObjects("name:Paged*", Patient.class);
+        Assert.assertEquals(PAGED_OBJECT_COUNT, patients.size());
+        for (Patient patient : patients)
+            Assert.assertTrue(uuids.contains(patient.getUuid()));
+    }
+
+    /**
+     * @verifies order objects by their relevance like the ranged search
+     * @see DefaultIndexer#getObjects(String, Class)
+     */
+    @Test
+    public void getObjects_shouldOrderObjectsByTheirRelevanceLikeTheRangedSearch() throws Exception {
+        createPagedPatients();
+        String searchString = "name:paged OR name:7 OR name:12";
+        List<Patient> patients = indexer.getObjects(searchString, Patient.class);
+        List<Patient> rangedPatients = indexer.getObjects(searchString, Patient.class, 0, PAGED_OBJECT_COUNT);
+        Assert.assertEquals(PAGED_OBJECT_COUNT, patients.size());
+        Assert.assertEquals(rangedPatients.size(), patients.size());
+        for (int i = 0; i < patients.size(); i++)
+            Assert.assertEquals(rangedPatients.get(i).getUuid(), patients.get(i).getUuid());
+        Assert.assertTrue(patients.get(0).getName().endsWith(" 7") || patients.get(0).getName().endsWith(" 12"));
+    }
+
+    /**
+     * @verifies return objects starting at the offset up to the limit
+     * @see DefaultIndexer#getObjects(String, Class, int, int)
+     */
+    @Test
+    public void getObjects_shouldReturnObjectsStartingAtTheOffsetUpToTheLimit() throws Exception {
+        Set<String> uuids = createPagedPatients();
+        Set<String> pagedUuids = new HashSet<String>();
+        for (int offset = 0; offset < PAGED_OBJECT_COUNT; offset += 10) {
+            List<Patient> patients = indexer.getObjects("name:Paged*", Patient.class, offset, 10);
+            Assert.assertEquals(Math.min(10, PAGED_OBJECT_COUNT - offset), patients.size());
+            for (Patient patient : patients)
+                pagedUuids.add(patient.getUuid());
+        }
+        Assert.assertEquals(uuids, pagedUuids);
+        Assert.assertTrue(indexer.getObjects("name:Paged*", Patient.class, PAGED_OBJECT_COUNT, 10).isEmpty());
+    }
+
+    /**
+     * @verifies reject negative offset
+     * @see DefaultIndexer#getObjects(String, Class, int, int)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void getObjects_shouldRejectNegativeOffset() throws Exception {
+        createPagedPatients();
+        indexer.getObjects("name:Paged*", Patient.class, -1, 10);
+    }
+
+    /**
+     * @verifies return the values of the selected fields for each matching object
+     * @see DefaultIndexer#getFieldValues(String, Class, java.util.List, int, int)
+     */
+    @Test
+    public void getFieldValues_shouldReturnTheValuesOfTheSelectedFieldsForEachMatchingObject() throws Exception {
+        Set<String> uuids = createPagedPatients();
+        List<Map<String, String>> fieldValues =
+                indexer.getFieldValues("name:Paged*", Patient.class, Arrays.asList("uuid", "name"), 0, 10);
+        Assert.assertEquals(10, fieldValues.size());
+        for (Map<String, String> values : fieldValues) {
+            Assert.assertEquals(2, values.size());
+            Assert.assertTrue(uuids.contains(values.get("uuid")));
+            Assert.assertTrue(values.get("name").startsWith("Paged Patient "));
+        }
+
+        fieldValues = indexer.getFieldValues("name:Paged*", resource, Arrays.asList("gender"), 0, 1);
+        Assert.assertEquals(1, fieldValues.size());
+        Assert.assertEquals("F", fieldValues.get(0).get("gender"));
+    }
+
+    /**
+     * @verifies search numeric and date fields using range queries
+     * @see DefaultIndexer#getObjects(String, Class)
+     */
+    @Test
+    public void getObjects_shouldSearchNumericAndDateFieldsUsingRangeQueries() throws Exception {
+        for (int age = 5; age <= 95; age += 10) {
+            String birthdate = (2012 - age) + "-06-15T00:00:00.000+0300";
+            indexer.createObject(createPatient(UUID.randomUUID().toString(), "Ranged Patient " + age, age,
+                    birthdate), resource);
+        }
+        Assert.assertEquals(5, indexer.getObjects("age:[18 TO 65]", Patient.class).size());
+        Assert.assertEquals(3, indexer.getObjects("age:{15 TO 55}", Patient.class).size());
+        Assert.assertEquals(3, indexer.getObjects("age:[* TO 25]", Patient.class).size());
+        Assert.assertEquals(1, indexer.getObjects("age:45", Patient.class).size());
+        Assert.assertEquals(2, indexer.getObjects("birthdate:[1950-01-01 TO 1970-01-01]", Patient.class).size());
+        Assert.assertEquals(1, indexer.getObjects("name:Ranged* AND birthdate:[1987-01-01 TO *] AND age:[5 TO 10]",
+                Patient.class).size());
+    }
+
+    /**
+     * @verifies search date without time as midnight utc
+     * @see DefaultIndexer#getObjects(String, Class)
+     */
+    @Test
+    public void getObjects_shouldSearchDateWithoutTimeAsMidnightUtc() throws Exception {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Auckland"));
+        try {
+            indexer.createObject(createPatient(UUID.randomUUID().toString(), "Midnight Patient", 30,
+                    "1982-06-15T00:00:00.000+0000"), resource);
+            indexer.createObject(createPatient(UUID.randomUUID().toString(), "Local Patient", 30,
+                    "1982-06-15T00:00:00.000+1200"), resource);
+            List<Patient> patients = indexer.getObjects("birthdate:1982-06-15", Patient.class);
+            Assert.assertEquals(1, patients.size());
+            Assert.assertEquals("Midnight Patient", patients.get(0).getName());
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    /**
+     * @verifies return all object matching the query and class
+     * @see DefaultIndexer#getObjects(org.apache.lucene.search.Query, Class)
+     */
+    @Test
+    public void getObjects_shouldReturnAllObjectMatchingTheQueryAndClass() throws Exception {
+        for (int age = 5; age <= 95; age += 10)
+            indexer.createObject(createPatient(UUID.randomUUID().toString(), "Built Patient " + age, age,
+                    "1982-01-01T00:00:00.000+0300"), resource);
+
+        QueryBuilder builder = Context.getInstance(QueryBuilder.class);
+        Query query = builder.and(builder.prefix("name", "Built"), builder.range("age", 18, 65, true, true));
+        Assert.assertEquals(5, indexer.getObjects(query, Patient.class).size());
+        Assert.assertEquals(5, indexer.getObjects(query, resource).size());
+        Assert.assertEquals(2, indexer.getObjects(query, Patient.class, 3, 10).size());
+
+        query = builder.and(builder.term("name", "Built Patient 45"), builder.not(builder.term("gender", "M")));
+        Patient patient = indexer.getObject(query, Patient.class);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals("Built Patient 45", patient.getName());
+        Assert.assertNull(indexer.getObject(builder.term("age", 46), resource));
+        Assert.assertEquals(2, indexer.getObjects(builder.or(builder.term("age", 5), builder.term("age", 95)),
+                Patient.class).size());
+    }
+
+    /**
+     * @verifies see objects created and deleted after the previous search
+     * @see DefaultIndexer#getObjects(String, Class)
+     */
+    @Test
+    public void getObjects_shouldSeeObjectsCreatedAndDeletedAfterThePreviousSearch() throws Exception {
+        createPagedPatients();
+        Assert.assertEquals(PAGED_OBJECT_COUNT, indexer.getObjects(StringUtil.EMPTY, Patient.class).size());
+        Assert.assertEquals(PAGED_OBJECT_COUNT, indexer.getObjects(StringUtil.EMPTY, resource).size());
+
+        Patient patient = createPatient(UUID.randomUUID().toString(), "Filtered Patient");
+        indexer.createObject(patient, resource);
+        Assert.assertEquals(PAGED_OBJECT_COUNT + 1, indexer.getObjects(StringUtil.EMPTY, Patient.class).size());
+        Assert.assertEquals(PAGED_OBJECT_COUNT + 1, indexer.getObjects(StringUtil.EMPTY, resource).size());
+        Assert.assertTrue(indexer.getObjects(StringUtil.EMPTY, Cohort.class).isEmpty());
+
+        indexer.deleteObject(patient, resource);
+        Assert.assertEquals(PAGED_OBJECT_COUNT, indexer.getObjects(StringUtil.EMPTY, Patient.class).size());
+        Assert.assertEquals(PAGED_OBJECT_COUNT, indexer.getObjects(StringUtil.EMPTY, resource).size());
+    }
+
+    /**
+     * @verifies return object with matching key and type
+     * @see DefaultIndexer#getObjectByKey(String, Class)
+     */
+    @Test
+    public void getObjectByKey_shouldReturnObjectWithMatchingKeyAndType() throws Exception {
+        Set<String> uuids = createPagedPatients();
+        Patient patient = indexer.getObjectByKey("Paged Patient 7", Patient.class);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals("Paged Patient 7", patient.getName());
+        Assert.assertTrue(uuids.contains(patient.getUuid()));
+
+        patient = (Patient) indexer.getObjectByKey("Paged Patient 8", resource);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals("Paged Patient 8", patient.getName());
+
+        patient = indexer.getObjectByKey("pAGED pATIENT 7", Patient.class);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals("Paged Patient 7", patient.getName());
+        patient = (Patient) indexer.getObjectByKey("PAGED PATIENT 8", resource);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals("Paged Patient 8", patient.getName());
+    }
+
+    /**
+     * @verifies return null when no object match the key and type
+     * @see DefaultIndexer#getObjectByKey(String, Class)
+     */
+    @Test
+    public void getObjectByKey_shouldReturnNullWhenNoObjectMatchTheKeyAndType() throws Exception {
+        createPagedPatients();
+        Assert.assertNull(indexer.getObjectByKey("Paged Patient " + PAGED_OBJECT_COUNT, Patient.class));
+        Assert.assertNull(indexer.getObjectByKey("Paged Patient 7", Cohort.class));
+
+        Patient patient = indexer.getObjectByKey("Paged Patient 7", Patient.class);
+        indexer.deleteObject(patient, resource);
+        Assert.assertNull(indexer.getObjectByKey("Paged Patient 7", Patient.class));
+    }
+
+    /**
+     * @verifies return all objects when following the cursor of each page
+     * @see DefaultIndexer#getPage(String, Class, org.apache.lucene.search.ScoreDoc, int)
+     */
+    @Test
+    public void getPage_shouldReturnAllObjectsWhenFollowingTheCursorOfEachPage() throws Exception {
+        Set<String> uuids = createPagedPatients();
+        Set<String> pagedUuids = new HashSet<String>();
+        Page<Patient> page = indexer.getPage("name:Paged*", Patient.class, null, 10);
+        while (true) {
+            Assert.assertEquals(PAGED_OBJECT_COUNT, page.getTotalHits());
+            for (Patient patient : page.getObjects())
+                Assert.assertTrue(pagedUuids.add(patient.getUuid()));
+            if (!page.hasNext())
+                break;
+            page = indexer.getPage("name:Paged*", Patient.class, page.getCursor(), 10);
+        }
+        Assert.assertEquals(uuids, pagedUuids);
+    }
+
+    /**
+     * @verifies iterate over all matching objects
+     * @see DefaultIndexer#iterateObjects(String, Class)
+     */
+    @Test
+    public void iterateObjects_shouldIterateOverAllMatchingObjects() throws Exception {
+        Set<String> uuids = createPagedPatients();
+        Set<String> iteratedUuids = new HashSet<String>();
+        ResultIterator<Patient> iterator = indexer.iterateObjects("name:Paged*", Patient.class);
+        try {
+            while (iterator.hasNext())
+                Assert.assertTrue(iteratedUuids.add(iterator.next().getUuid()));
+        } finally {
+            iterator.close();
+        }
+        Assert.assertEquals(uuids, iteratedUuids);
+    }
+
+    /**
+     * @verifies return lazy list of all matching objects
+     * @see DefaultIndexer#getResultList(String, Class)
+     */
+    @Test
+    public void getResultList_shouldReturnLazyListOfAllMatchingObjects() throws Exception {
+        Set<String> uuids = createPagedPatients();
+        Set<String> listedUuids = new HashSet<String>();
+        ResultList<Patient> patients = indexer.getResultList("name:Paged*", Patient.class);
+        try {
+            Assert.assertEquals(PAGED_OBJECT_COUNT, patients.size());
+            for (Patient patient : patients)
+                listedUuids.add(patient.getUuid());
+            // the recently accessed object is served from the cache instead of deserialized again
+            Assert.assertSame(patients.get(PAGED_OBJECT_COUNT - 1), patients.get(PAGED_OBJECT_COUNT - 1));
+        } finally {
+            patients.close();
+        }
+        Assert.assertEquals(uuids, listedUuids);
+    }
+
+    /**
+     * @verifies create searchable objects with every directory type
+     * @see DefaultIndexer#createObject(Object, com.mclinic.search.api.resource.Resource)
+     */
+    @Test
+    public void createObject_shouldCreateSearchableObjectsWithEveryDirectoryType() throws Exception {
+        String[] directoryTypes = {DirectoryProvider.TYPE_NIO, DirectoryProvider.TYPE_MMAP, DirectoryProvider.TYPE_RAM,
+                DirectoryProvider.TYPE_CACHED};
+        for (String directoryType : directoryTypes) {
+            indexer.close();
+            initialize(null, directoryType, null, null, null);
+
+            String uuid = UUID.randomUUID().toString();
+            indexer.createObject(createPatient(uuid, "Directory Patient"), resource);
+            Patient patient = indexer.getObject(StringUtil.quote(uuid), Patient.class);
+            Assert.assertNotNull(patient);
+            Assert.assertEquals(uuid, patient.getUuid());
+        }
+    }
+
+    /**
+     * @verifies read objects stored with and without json compression
+     * @see DefaultIndexer#getObject(String, Class)
+     */
+    @Test
+    public void getObject_shouldReadObjectsStoredWithAndWithoutJsonCompression() throws Exception {
+        indexer.close();
+        initialize(null, null, Boolean.TRUE, null, null);
+        String compressedUuid = UUID.randomUUID().toString();
+        indexer.createObject(createPatient(compressedUuid, "Compressed Patient"), resource);
+
+        indexer.close();
+        initialize(null, null, Boolean.FALSE, null, null);
+        String uuid = UUID.randomUUID().toString();
+        indexer.createObject(createPatient(uuid, "Uncompressed Patient"), resource);
+
+        Patient patient = indexer.getObject(StringUtil.quote(compressedUuid), Patient.class);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals(compressedUuid, patient.getUuid());
+        patient = indexer.getObject(StringUtil.quote(uuid), Patient.class);
+        Assert.assertNotNull(patient);
+        Assert.assertEquals(uuid, patient.getUuid());
+    }
+
+    /**
+     * @verifies return cached object until the object is updated
+     * @see DefaultIndexer#getObject(String, Class)
+     */
+    @Test
+    public void getObject_shouldReturnCachedObjectUntilTheObjectIsUpdated() throws Exception {
+        indexer.close();
+        initialize(null, null, null, 10, null);
+        String uuid = UUID.randomUUID().toString();
+        indexer.createObject(createPatient(uuid, "Cached Patient"), resource);
+
+        Patient patient = indexer.getObject(StringUtil.quote(uuid), Patient.class);
+        Assert.assertNotNull(patient);
+        Assert.assertSame(patient, indexer.getObject(StringUtil.quote(uuid), Patient.class));
+        Assert.assertSame(patient, indexer.getObjects("name:Cached*", Patient.class).get(0));
+
+        indexer.updateObject(createPatient(uuid, "Cached Patient", 31, "1981-01-01T00:00:00.000+0300"), resource);
+        Patient updated = indexer.getObject(StringUtil.quote(uuid), Patient.class);
+        Assert.assertNotSame(patient, updated);
+        Assert.assertTrue(updated.getJson().contains("\"age\":31"));
+
+        indexer.deleteObject(updated, resource);
+        Assert.assertNull(indexer.getObject(StringUtil.quote(uuid), Patient.class));
+    }
+
+    /**
+     * @verifies count repeated searches as cache hits
+     * @see DefaultIndexer#getQueryCacheHits()
+     */
+    @Test
+    public void getQueryCacheHits_shouldCountRepeatedSearchesAsCacheHits() throws Exception {
+        indexer.close();
+        initialize(null, null, null, null, 10);
+        createPagedPatients();
+
+        Assert.assertEquals(PAGED_OBJECT_COUNT, indexer.getObjects("name:Paged*", Patient.class).size());
+        Assert.assertEquals(0, indexer.getQueryCacheHits());
+        Assert.assertEquals(1, indexer.getQueryCacheMisses());
+        // the same query written differently is parsed into the same lucene query.
+        Assert.assertEquals(PAGED_OBJECT_COUNT, indexer.getObjects("  name:Paged* ", Patient.class).size());
+        Assert.assertEquals(1, indexer.getQueryCacheHits());
+        Assert.assertEquals(10, indexer.getObjects("name:Paged*", Patient.class, 0, 10).size());
+        Assert.assertEquals(2, indexer.getQueryCacheMisses());
+
+        // changing the index reopens the searcher, the cached hits must not be used anymore.
+        Patient patient = indexer.getObjectByKey("Paged Patient 3", Patient.class);
+        indexer.deleteObject(patient, resource);
+        Assert.assertEquals(PAGED_OBJECT_COUNT - 1, indexer.getObjects("name:Paged*", Patient.class).size());
+        Assert.assertEquals(1, indexer.getQueryCacheHits());
+        Assert.assertEquals(3, indexer.getQueryCacheMisses());
+    }
+}
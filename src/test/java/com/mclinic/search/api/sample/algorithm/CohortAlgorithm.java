@@ -19,6 +19,12 @@ import com.mclinic.search.api.serialization.Algorithm;
 
 public class CohortAlgorithm implements Algorithm {
 
+    private static final JsonPath ROOT_PATH = JsonPath.compile("$");
+
+    private static final JsonPath UUID_PATH = JsonPath.compile("$.uuid");
+
+    private static final JsonPath DISPLAY_PATH = JsonPath.compile("$.display");
+
     /**
      * Implementation of this method will define how the object will be serialized from the String representation.
      *
@@ -29,10 +35,10 @@ public class CohortAlgorithm implements Algorithm {
     public Object deserialize(final String serialized) {
         Cohort cohort = new Cohort();
 
-        Object jsonObject = JsonPath.read(serialized, "$");
-        String uuid = JsonPath.read(jsonObject, "$.uuid");
+        Object jsonObject = ROOT_PATH.read(serialized);
+        String uuid = UUID_PATH.read(jsonObject);
         cohort.setUuid(uuid);
-        String name = JsonPath.read(jsonObject, "$.display");
+        String name = DISPLAY_PATH.read(jsonObject);
         cohort.setName(name);
 
         cohort.setJson(serialized);
@@ -20,6 +20,16 @@ import com.mclinic.search.api.serialization.Algorithm;
 
 public class CohortMemberAlgorithm implements Algorithm {
 
+    private static final JsonPath ROOT_PATH = JsonPath.compile("$");
+
+    private static final JsonPath PATIENT_UUID_PATH = JsonPath.compile("$.patient.uuid");
+
+    private static final JsonPath PATIENT_PERSON_DISPLAY_PATH = JsonPath.compile("$.patient.person.display");
+
+    private static final JsonPath PATIENT_IDENTIFIERS_DISPLAY_PATH = JsonPath.compile("$.patient.identifiers[0].display");
+
+    private static final JsonPath PATIENT_PERSON_GENDER_PATH = JsonPath.compile("$.patient.person.gender");
+
     /**
      * Implementation of this method will define how the patient will be serialized from the JSON representation.
      *
@@ -32,18 +42,18 @@ public class CohortMemberAlgorithm implements Algorithm {
 
         // get the full json object representation and then pass this around to the next JsonPath.read()
         // this should minimize the time for the subsequent read() call
-        Object jsonObject = JsonPath.read(serialized, "$");
+        Object jsonObject = ROOT_PATH.read(serialized);
 
-        String uuid = JsonPath.read(jsonObject, "$.patient.uuid");
+        String uuid = PATIENT_UUID_PATH.read(jsonObject);
         patient.setUuid(uuid);
 
-        String name = JsonPath.read(jsonObject, "$.patient.person.display");
+        String name = PATIENT_PERSON_DISPLAY_PATH.read(jsonObject);
         patient.setName(name);
 
-        String identifier = JsonPath.read(jsonObject, "$.patient.identifiers[0].display");
+        String identifier = PATIENT_IDENTIFIERS_DISPLAY_PATH.read(jsonObject);
         patient.setIdentifier(identifier);
 
-        String gender = JsonPath.read(jsonObject, "$.patient.person.gender");
+        String gender = PATIENT_PERSON_GENDER_PATH.read(jsonObject);
         patient.setGender(gender);
 
         patient.setJson(serialized);
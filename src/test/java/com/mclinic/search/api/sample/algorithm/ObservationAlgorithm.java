@@ -23,6 +23,22 @@ import java.text.ParseException;
 
 public class ObservationAlgorithm implements Algorithm {
 
+    private static final JsonPath ROOT_PATH = JsonPath.compile("$");
+
+    private static final JsonPath UUID_PATH = JsonPath.compile("$.uuid");
+
+    private static final JsonPath PERSON_UUID_PATH = JsonPath.compile("$.person.uuid");
+
+    private static final JsonPath CONCEPT_DISPLAY_PATH = JsonPath.compile("$.concept.display");
+
+    private static final JsonPath CONCEPT_UUID_PATH = JsonPath.compile("$.concept.uuid");
+
+    private static final JsonPath VALUE_PATH = JsonPath.compile("$.value");
+
+    private static final JsonPath NAME_DISPLAY_PATH = JsonPath.compile("$.name.display");
+
+    private static final JsonPath OBS_DATETIME_PATH = JsonPath.compile("$.obsDatetime");
+
     /**
      * Implementation of this method will define how the object will be serialized from the String representation.
      *
@@ -35,27 +51,27 @@ public class ObservationAlgorithm implements Algorithm {
 
         // get the full json object representation and then pass this around to the next JsonPath.read()
         // this should minimize the time for the subsequent read() call
-        Object jsonObject = JsonPath.read(serialized, "$");
+        Object jsonObject = ROOT_PATH.read(serialized);
 
-        String uuid = JsonPath.read(jsonObject, "$.uuid");
+        String uuid = UUID_PATH.read(jsonObject);
         observation.setUuid(uuid);
 
-        String patient = JsonPath.read(jsonObject, "$.person.uuid");
+        String patient = PERSON_UUID_PATH.read(jsonObject);
         observation.setPatient(patient);
 
-        String conceptName = JsonPath.read(jsonObject, "$.concept.display");
+        String conceptName = CONCEPT_DISPLAY_PATH.read(jsonObject);
         observation.setFieldName(conceptName);
 
-        String conceptUuid = JsonPath.read(jsonObject, "$.concept.uuid");
+        String conceptUuid = CONCEPT_UUID_PATH.read(jsonObject);
         observation.setFieldUuid(conceptUuid);
 
-        Object jsonValue = JsonPath.read(jsonObject, "$.value");
+        Object jsonValue = VALUE_PATH.read(jsonObject);
         String value = jsonValue.toString();
         if (jsonValue instanceof JSONObject)
-            value = JsonPath.read(jsonValue, "$.name.display");
+            value = NAME_DISPLAY_PATH.read(jsonValue);
         observation.setValueText(value);
 
-        String obsDatetime = JsonPath.read(jsonObject, "$.obsDatetime");
+        String obsDatetime = OBS_DATETIME_PATH.read(jsonObject);
         try {
             observation.setObservationDate(ISO8601Util.toCalendar(obsDatetime).getTime());
         } catch (ParseException e) {
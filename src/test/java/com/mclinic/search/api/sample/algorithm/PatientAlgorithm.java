@@ -20,6 +20,16 @@ import com.mclinic.search.api.serialization.Algorithm;
 
 public class PatientAlgorithm implements Algorithm {
 
+    private static final JsonPath ROOT_PATH = JsonPath.compile("$");
+
+    private static final JsonPath UUID_PATH = JsonPath.compile("$.uuid");
+
+    private static final JsonPath PERSON_DISPLAY_PATH = JsonPath.compile("$.person.display");
+
+    private static final JsonPath IDENTIFIERS_IDENTIFIER_PATH = JsonPath.compile("$.identifiers[0].identifier");
+
+    private static final JsonPath PERSON_GENDER_PATH = JsonPath.compile("$.person.gender");
+
     /**
      * Implementation of this method will define how the patient will be serialized from the JSON representation.
      *
@@ -32,18 +42,18 @@ public class PatientAlgorithm implements Algorithm {
 
         // get the full json object representation and then pass this around to the next JsonPath.read()
         // this should minimize the time for the subsequent read() call
-        Object jsonObject = JsonPath.read(serialized, "$");
+        Object jsonObject = ROOT_PATH.read(serialized);
 
-        String uuid = JsonPath.read(jsonObject, "$.uuid");
+        String uuid = UUID_PATH.read(jsonObject);
         patient.setUuid(uuid);
 
-        String name = JsonPath.read(jsonObject, "$.person.display");
+        String name = PERSON_DISPLAY_PATH.read(jsonObject);
         patient.setName(name);
 
-        String identifier = JsonPath.read(jsonObject, "$.identifiers[0].identifier");
+        String identifier = IDENTIFIERS_IDENTIFIER_PATH.read(jsonObject);
         patient.setIdentifier(identifier);
 
-        String gender = JsonPath.read(jsonObject, "$.person.gender");
+        String gender = PERSON_GENDER_PATH.read(jsonObject);
         patient.setGender(gender);
 
         patient.setJson(serialized);